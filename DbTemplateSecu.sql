@@ -23,6 +23,27 @@ SET time_zone = "+00:00";
 
 -- --------------------------------------------------------
 
+--
+-- Table structure for table `mail_outbox`
+--
+
+CREATE TABLE `mail_outbox` (
+  `id` bigint(20) NOT NULL,
+  `kind` varchar(32) NOT NULL,
+  `recipient` varchar(180) NOT NULL,
+  `locale` varchar(35) NOT NULL,
+  `payload` varchar(1024) DEFAULT NULL,
+  `status` varchar(16) NOT NULL,
+  `attempts` int(11) NOT NULL DEFAULT 0,
+  `next_attempt_at` timestamp NOT NULL DEFAULT '0000-00-00 00:00:00',
+  `created_at` timestamp NOT NULL DEFAULT current_timestamp(),
+  `expires_at` timestamp NULL DEFAULT NULL,
+  `sent_at` timestamp NULL DEFAULT NULL,
+  `last_error` varchar(500) DEFAULT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
 --
 -- Table structure for table `password_reset_tokens`
 --
@@ -30,7 +51,8 @@ SET time_zone = "+00:00";
 CREATE TABLE `password_reset_tokens` (
   `id` bigint(20) NOT NULL,
   `user_id` bigint(20) NOT NULL,
-  `token` varchar(180) NOT NULL,
+  `token` varchar(180) DEFAULT NULL,
+  `token_hash` binary(32) DEFAULT NULL,
   `created_at` timestamp NOT NULL DEFAULT current_timestamp() ON UPDATE current_timestamp(),
   `expires_at` timestamp NOT NULL DEFAULT '0000-00-00 00:00:00',
   `used_at` timestamp NULL DEFAULT NULL
@@ -38,6 +60,36 @@ CREATE TABLE `password_reset_tokens` (
 
 -- --------------------------------------------------------
 
+--
+-- Table structure for table `rate_limit_counters`
+--
+
+CREATE TABLE `rate_limit_counters` (
+  `id` varchar(96) NOT NULL,
+  `hits` bigint(20) NOT NULL,
+  `expires_at` timestamp NOT NULL DEFAULT '0000-00-00 00:00:00'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `refresh_tokens`
+--
+
+CREATE TABLE `refresh_tokens` (
+  `id` bigint(20) NOT NULL,
+  `user_id` bigint(20) NOT NULL,
+  `token_hash` varchar(64) NOT NULL,
+  `family_id` varchar(36) NOT NULL,
+  `created_at` timestamp NOT NULL DEFAULT current_timestamp(),
+  `expires_at` timestamp NOT NULL DEFAULT '0000-00-00 00:00:00',
+  `family_expires_at` timestamp NOT NULL DEFAULT '0000-00-00 00:00:00',
+  `used_at` timestamp NULL DEFAULT NULL,
+  `revoked_at` timestamp NULL DEFAULT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
 --
 -- Table structure for table `users`
 --
@@ -48,6 +100,8 @@ CREATE TABLE `users` (
   `password` varchar(255) NOT NULL,
   `first_name` varchar(80) NOT NULL,
   `last_name` varchar(80) NOT NULL,
+  `security_version` int(11) NOT NULL DEFAULT 0,
+  `role_mask` bigint(20) NOT NULL DEFAULT 0,
   `created_at` timestamp NOT NULL DEFAULT current_timestamp()
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
@@ -66,14 +120,40 @@ CREATE TABLE `user_roles` (
 -- Indexes for dumped tables
 --
 
+--
+-- Indexes for table `mail_outbox`
+--
+ALTER TABLE `mail_outbox`
+  ADD PRIMARY KEY (`id`),
+  ADD KEY `idx_mo_status_next` (`status`,`next_attempt_at`);
+
 --
 -- Indexes for table `password_reset_tokens`
 --
 ALTER TABLE `password_reset_tokens`
   ADD PRIMARY KEY (`id`),
   ADD UNIQUE KEY `token` (`token`),
+  ADD UNIQUE KEY `idx_prt_token_hash` (`token_hash`),
   ADD KEY `idx_prt_user_id` (`user_id`),
-  ADD KEY `idx_prt_token` (`token`);
+  ADD KEY `idx_prt_token` (`token`),
+  ADD KEY `idx_prt_expires_at` (`expires_at`),
+  ADD KEY `idx_prt_used_at` (`used_at`);
+
+--
+-- Indexes for table `rate_limit_counters`
+--
+ALTER TABLE `rate_limit_counters`
+  ADD PRIMARY KEY (`id`),
+  ADD KEY `idx_rlc_expires_at` (`expires_at`);
+
+--
+-- Indexes for table `refresh_tokens`
+--
+ALTER TABLE `refresh_tokens`
+  ADD PRIMARY KEY (`id`),
+  ADD UNIQUE KEY `idx_rt_token_hash` (`token_hash`),
+  ADD KEY `idx_rt_family_id` (`family_id`),
+  ADD KEY `idx_rt_user_id` (`user_id`);
 
 --
 -- Indexes for table `users`
@@ -92,12 +172,24 @@ ALTER TABLE `user_roles`
 -- AUTO_INCREMENT for dumped tables
 --
 
+--
+-- AUTO_INCREMENT for table `mail_outbox`
+--
+ALTER TABLE `mail_outbox`
+  MODIFY `id` bigint(20) NOT NULL AUTO_INCREMENT;
+
 --
 -- AUTO_INCREMENT for table `password_reset_tokens`
 --
 ALTER TABLE `password_reset_tokens`
   MODIFY `id` bigint(20) NOT NULL AUTO_INCREMENT, AUTO_INCREMENT=43;
 
+--
+-- AUTO_INCREMENT for table `refresh_tokens`
+--
+ALTER TABLE `refresh_tokens`
+  MODIFY `id` bigint(20) NOT NULL AUTO_INCREMENT;
+
 --
 -- AUTO_INCREMENT for table `users`
 --
@@ -114,6 +206,12 @@ ALTER TABLE `users`
 ALTER TABLE `password_reset_tokens`
   ADD CONSTRAINT `fk_prt_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE;
 
+--
+-- Constraints for table `refresh_tokens`
+--
+ALTER TABLE `refresh_tokens`
+  ADD CONSTRAINT `fk_rt_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE;
+
 --
 -- Constraints for table `user_roles`
 --
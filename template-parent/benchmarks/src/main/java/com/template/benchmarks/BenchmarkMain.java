@@ -0,0 +1,37 @@
+package com.template.benchmarks;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.results.format.ResultFormatType;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+//Entry point of target/benchmarks.jar. Same options as the JMH launcher, but results always end up as JSON:
+//target/jmh/<timestamp>.json unless -rf/-rff is given, so runs can be kept and compared (e.g. jmh.morethan.io).
+public final class BenchmarkMain {
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cli);
+
+        boolean customResult = Arrays.stream(args).anyMatch(a -> a.equals("-rf") || a.equals("-rff"));
+        if (!customResult) {
+            File dir = new File("target/jmh");
+            dir.mkdirs();
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(new File(dir, LocalDateTime.now().format(STAMP) + ".json").getPath());
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,55 @@
+package com.template.benchmarks;
+
+import com.template.security.ip.CidrTrie;
+import com.template.security.ip.IpAddress;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//IP parsing (X-Forwarded-For entries) and longest-prefix match in the CIDR trie used for proxies/allow/deny lists.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientIpBenchmark {
+
+    private static final String XFF = "2001:db8:85a3::8a2e:370:7334, 198.51.100.23, 10.0.3.17";
+
+    private CidrTrie<Boolean> trie;
+    private IpAddress v4;
+    private IpAddress v6;
+
+    @Setup
+    public void setup() {
+        trie = new CidrTrie<>();
+        // a denylist-sized table: 10k IPv4 /24 and 10k IPv6 /48
+        for (int i = 0; i < 10_000; i++) {
+            trie.put(IpAddress.ofV4((i << 8) | 0x0b000000), 96 + 24, Boolean.TRUE);
+            trie.put(new IpAddress(0x2001_0db8_0000_0000L | ((long) i << 16), 0), 48, Boolean.TRUE);
+        }
+        v4 = IpAddress.parse("11.0.39.4");
+        v6 = IpAddress.parse("2001:db8:270f::1");
+    }
+
+    @Benchmark
+    public IpAddress parseV4() {
+        return IpAddress.parse(XFF, 30, 43);
+    }
+
+    @Benchmark
+    public IpAddress parseV6() {
+        return IpAddress.parse(XFF, 0, 28);
+    }
+
+    @Benchmark
+    public Boolean matchV4() {
+        return trie.longestMatch(v4);
+    }
+
+    @Benchmark
+    public Boolean matchV6() {
+        return trie.longestMatch(v6);
+    }
+}
@@ -0,0 +1,45 @@
+package com.template.benchmarks;
+
+import com.template.security.jwt.JwtService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//Token signing (login/refresh) and verification (every authenticated request), per algorithm.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    @Param({"HS256", "ES256"})
+    public String algorithm;
+
+    private JwtService jwt;
+    private Map<String, Object> claims;
+    private String token;
+
+    @Setup
+    public void setup() {
+        // ES256 without configured key material generates an ephemeral pair
+        jwt = new JwtService(algorithm, "benchmark-secret-benchmark-secret-0123456789", "", "", "bench", "",
+                "http://localhost:8080", "frontend", 30);
+        claims = Map.of("roles", List.of("USER"), "sv", 0);
+        token = jwt.generateToken("user@example.com", 900, claims);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwt.generateToken("user@example.com", 900, claims);
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return jwt.parse(token).getBody();
+    }
+}
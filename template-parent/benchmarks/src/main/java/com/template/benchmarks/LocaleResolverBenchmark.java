@@ -0,0 +1,43 @@
+package com.template.benchmarks;
+
+import com.template.config.I18nConfigBackend;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+//I18nConfigBackend.resolveLocale for the Accept-Language headers browsers actually send.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocaleResolverBenchmark {
+
+    @Param({
+            "none",
+            "fr-FR,fr;q=0.9,en-US;q=0.8,en;q=0.7",
+            "en-US,en;q=0.9",
+            "de-DE,de;q=0.9,it;q=0.8,es;q=0.7,pt;q=0.6,nl;q=0.5"
+    })
+    public String acceptLanguage;
+
+    private I18nConfigBackend resolver;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() {
+        resolver = new I18nConfigBackend();
+        request = new MockHttpServletRequest();
+        if (!"none".equals(acceptLanguage)) {
+            request.addHeader("Accept-Language", acceptLanguage);
+        }
+    }
+
+    @Benchmark
+    public Locale resolveLocale() {
+        return resolver.resolveLocale(request);
+    }
+}
@@ -0,0 +1,55 @@
+package com.template.benchmarks;
+
+import com.template.security.ip.IpAddress;
+import com.template.service.RateLimiterService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//RateLimiterService under contention: 8 threads on one hot key (CAS contention on one state word) vs keys spread over many users.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    @Param({"3", "1000"})
+    public int maxPerKey;
+
+    private static final IpAddress HOT_IP = IpAddress.parse("203.0.113.7");
+
+    private RateLimiterService limiter;
+    private String[] emails;
+
+    @Setup
+    public void setup() {
+        limiter = new RateLimiterService(3600, maxPerKey, maxPerKey, 65536, Optional.empty(), 1, 5000);
+        emails = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            emails[i] = "user" + i + "@example.com";
+        }
+    }
+
+    // start each iteration with full buckets
+    @TearDown(Level.Iteration)
+    public void reset() {
+        setup();
+    }
+
+    @Benchmark
+    public boolean hotKey() {
+        return limiter.allowIp(HOT_IP);
+    }
+
+    @Benchmark
+    public boolean spreadKeys() {
+        return limiter.allowEmail(emails[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+}
@@ -0,0 +1,55 @@
+package com.template.benchmarks;
+
+import com.template.security.SecureTokenGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+//48-byte reset token: new SecureRandom per call (previous ForgotPasswordService), one shared SecureRandom
+//(previous RefreshTokenService) and the striped, prefetching SecureTokenGenerator, under 8 threads.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(8)
+public class SecureTokenBenchmark {
+
+    private static final int BYTES = 48;
+
+    private final SecureRandom shared = new SecureRandom();
+    private SecureTokenGenerator generator;
+
+    @Setup
+    public void setup() {
+        generator = new SecureTokenGenerator(new SimpleMeterRegistry(), 0, 4096);
+    }
+
+    @TearDown
+    public void tearDown() {
+        generator.destroy();
+    }
+
+    @Benchmark
+    public String newSecureRandomPerCall() {
+        byte[] bytes = new byte[BYTES];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Benchmark
+    public String sharedSecureRandom() {
+        byte[] bytes = new byte[BYTES];
+        shared.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Benchmark
+    public String generator() {
+        return generator.nextToken(BYTES);
+    }
+}
@@ -0,0 +1,41 @@
+package com.template.benchmarks;
+
+import com.template.front.client.SetCookies;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+//Set-Cookie parsing done by BackendAuthClient on each login/refresh response.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetCookiesBenchmark {
+
+    private static final String ACCESS = "access_token=eyJhbGciOiJIUzI1NiIsImtpZCI6ImRlZmF1bHQifQ"
+            + ".eyJyb2xlcyI6WyJVU0VSIl0sInN2IjowLCJzdWIiOiJ1c2VyQGV4YW1wbGUuY29tIn0"
+            + ".c2lnbmF0dXJlLXNpZ25hdHVyZS1zaWduYXR1cmU; Path=/; Max-Age=900; HttpOnly; SameSite=Lax";
+    private static final String REFRESH = "refresh_token=Q3JlYXRlZEJ5QmVuY2htYXJrUmVmcmVzaFRva2Vu"
+            + "; Path=/auth; Max-Age=604800; HttpOnly; SameSite=Strict";
+
+    private final List<String> headers = List.of("JSESSIONID=0A1B2C3D4E5F; Path=/; HttpOnly", ACCESS, REFRESH);
+
+    @Benchmark
+    public Optional<String> accessToken() {
+        return SetCookies.valueIn(headers, "access_token");
+    }
+
+    @Benchmark
+    public Optional<String> refreshToken() {
+        return SetCookies.valueIn(headers, "refresh_token");
+    }
+
+    @Benchmark
+    public long maxAge() {
+        return SetCookies.maxAgeSeconds(ACCESS, 900);
+    }
+}
@@ -0,0 +1,62 @@
+package com.template.benchmarks;
+
+import com.template.validation.StrongPassword;
+import com.template.validation.StrongPasswordValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+//StrongPasswordValidator.isValid over small corpora shaped like real input:
+//typical user passwords (mostly rejected early or late), generated passwords, and non-ASCII passphrases.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrongPasswordValidatorBenchmark {
+
+    @StrongPassword
+    private static String annotated;
+
+    private static final String[] COMMON = {
+            "123456", "password", "Password1", "qwerty123", "Summer2024!", "iloveyou",
+            "Azerty123*", "P@ssw0rd", "letmein", "Football#1", "admin", "Welcome1!"
+    };
+    private static final String[] GENERATED = {
+            "q7R#vT9!mZ2@pL5$", "Xk3$Lp9@Vb7&Nm2*Qa5!", "tH8%wE4^rY1&uI6*oP3(",
+            "A1b2C3d4E5f6G7h8!i9j", "Zy9!Xw8@Vu7#Ts6$Rq5%Po4^Nm3&", "mN4#bV7$cX1@zL8%"
+    };
+    private static final String[] UNICODE = {
+            "Mot-de-passe-très-sûr-42", "Ünïcödé-Pässwörd-9", "Пароль-Надёжный-7",
+            "Contraseña€Segura1", "Ελληνικά-Κλειδί-3", "ÉtéÀParis2024§"
+    };
+
+    @Param({"common", "generated", "unicode"})
+    public String corpus;
+
+    private StrongPasswordValidator validator;
+    private String[] passwords;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        validator = new StrongPasswordValidator();
+        validator.initialize(StrongPasswordValidatorBenchmark.class
+                .getDeclaredField("annotated").getAnnotation(StrongPassword.class));
+        passwords = switch (corpus) {
+            case "common" -> COMMON;
+            case "generated" -> GENERATED;
+            default -> UNICODE;
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void isValid(Blackhole bh) {
+        // 12 calls per invocation whatever the corpus size, so the per-op time is comparable
+        for (int i = 0; i < 12; i++) {
+            bh.consume(validator.isValid(passwords[i % passwords.length], null));
+        }
+    }
+}
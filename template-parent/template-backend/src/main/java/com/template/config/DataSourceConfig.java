@@ -0,0 +1,96 @@
+package com.template.config;
+
+import com.template.datasource.ReadReplicaDataSource;
+import com.template.datasource.ReplicaProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Read/write split (app.datasource.replica.enabled=true): read-only transactions (@Transactional(readOnly = true),
+// inherited Spring Data reads such as findById/findAll) go to the replicas, everything else to spring.datasource.
+// Reads that must see a write just committed (cache reloads, outbox, cleanup) are pinned with a plain @Transactional. The lazy proxy only fetches the
+// physical connection at the first statement, once the transaction has flagged it read-only.
+// Needs spring.jpa.open-in-view=false: a request-wide EntityManager holds the first connection it gets (a replica
+// after any finder) until the request ends, and later writes would run on it.
+// Disabled: Spring Boot's single auto-configured pool is used as before.
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("primary");
+        return pool;
+    }
+
+    @Bean
+    public ReadReplicaDataSource readReplicaDataSource(HikariDataSource primaryDataSource,
+                                                       DataSourceProperties primaryProperties,
+                                                       ReplicaProperties properties,
+                                                       MeterRegistry meterRegistry) {
+        List<ReadReplicaDataSource.Replica> replicas = new ArrayList<>();
+        for (Map.Entry<String, ReplicaProperties.Node> e : properties.nodes().entrySet()) {
+            replicas.add(new ReadReplicaDataSource.Replica(e.getKey(),
+                    replicaPool(e.getKey(), e.getValue(), primaryProperties, properties, meterRegistry)));
+        }
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("app.datasource.replica.enabled=true needs at least one app.datasource.replica.nodes.<name>.url");
+        }
+        return new ReadReplicaDataSource(primaryDataSource, replicas, properties.maxLag(), properties.lagQuery(),
+                meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReadReplicaDataSource readReplicaDataSource,
+                                 @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView) {
+            throw new IllegalStateException("app.datasource.replica.enabled=true needs spring.jpa.open-in-view=false");
+        }
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(readReplicaDataSource);
+        return proxy;
+    }
+
+    private static HikariDataSource replicaPool(String name, ReplicaProperties.Node node,
+                                                DataSourceProperties primary, ReplicaProperties properties,
+                                                MeterRegistry meterRegistry) {
+        if (node.url() == null || node.url().isBlank()) {
+            throw new IllegalArgumentException("app.datasource.replica.nodes." + name + ".url missed");
+        }
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("replica-" + name);
+        config.setJdbcUrl(node.url());
+        config.setUsername(node.username() != null ? node.username() : primary.determineUsername());
+        config.setPassword(node.password() != null ? node.password() : primary.determinePassword());
+        String driver = node.driverClassName() != null ? node.driverClassName() : primary.getDriverClassName();
+        if (driver != null) {
+            config.setDriverClassName(driver);
+        }
+        config.setMaximumPoolSize(Math.max(1, properties.maxPoolSize()));
+        config.setConnectionTimeout(Math.max(250, properties.connectionTimeout().toMillis()));
+        config.setReadOnly(true);
+        // start even when the replica is down: the health check keeps it out of rotation
+        config.setInitializationFailTimeout(-1);
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new HikariDataSource(config);
+    }
+}
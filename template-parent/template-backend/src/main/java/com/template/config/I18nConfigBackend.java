@@ -3,6 +3,7 @@ package com.template.config;
 import java.util.List;
 import java.util.Locale;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -33,11 +34,13 @@ public class I18nConfigBackend extends AcceptHeaderLocaleResolver {
     }
 
     @Bean
-    public MessageSource messageSource() {
+    public MessageSource messageSource(@Value("${app.i18n.cache-seconds:-1}") int cacheSeconds) {
         ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
         ms.setBasename("classpath:messages/messages");
         ms.setDefaultEncoding("UTF-8");
         ms.setFallbackToSystemLocale(false);
+        // -1: loaded once; >= 0: bundles re-checked after that many seconds (mail templates follow)
+        ms.setCacheSeconds(cacheSeconds);
         return ms;
     }
 }
@@ -1,8 +1,20 @@
 package com.template.config;
 
-import com.template.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.template.security.BCryptCalibrator;
+import com.template.security.AuthPrincipalCache;
+import com.template.security.BulkheadPasswordEncoder;
+import com.template.security.ClientIpResolver;
 import com.template.security.JwtCookieAuthFilter;
-import com.template.security.jwt.JwtService;
+import com.template.security.SecurityVersionService;
+import com.template.security.jwt.TokenDenylist;
+import com.template.security.jwt.VerifiedTokenCache;
+import com.template.security.ratelimit.RateLimitFilter;
+import com.template.security.ratelimit.RateLimitProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -11,26 +23,60 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.*;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableMethodSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfig {
 
+    // BCrypt runs on its own bounded pool, never on the request threads (see BulkheadPasswordEncoder).
+    // Hashes are stored as "{bcrypt}$2a$..."; legacy hashes without prefix still match and, like hashes
+    // made with another pinned strength or below min-strength when calibrated, are rehashed on the next
+    // successful login (AuthService.login).
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${app.hashing.threads:0}") int threads,
+                                           @Value("${app.hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${app.hashing.max-wait-ms:2000}") long maxWaitMs,
+                                           @Value("${app.hashing.retry-after-seconds:2}") long retryAfterSeconds,
+                                           @Value("${app.hashing.bcrypt.strength:0}") int fixedStrength,
+                                           @Value("${app.hashing.bcrypt.target-ms:250}") long targetMs,
+                                           @Value("${app.hashing.bcrypt.min-strength:10}") int minStrength,
+                                           @Value("${app.hashing.bcrypt.max-strength:16}") int maxStrength) {
+        var bcrypt = fixedStrength > 0
+                ? new BCryptCalibrator.RehashingEncoder(fixedStrength, fixedStrength, fixedStrength)
+                : new BCryptCalibrator.RehashingEncoder(BCryptCalibrator.calibrate(targetMs, minStrength, maxStrength),
+                        minStrength, Integer.MAX_VALUE);
+
+        var delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        Gauge.builder("auth.hashing.bcrypt.strength", bcrypt, BCryptCalibrator.RehashingEncoder::strength)
+                .description("BCrypt work factor used for new hashes")
+                .register(meterRegistry);
+        return new BulkheadPasswordEncoder(delegating, threads, queueCapacity,
+                Duration.ofMillis(maxWaitMs), retryAfterSeconds, meterRegistry);
     }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http,
-                                           JwtService jwt,
-                                           UserRepository userRepo) throws Exception {
+                                           VerifiedTokenCache tokens,
+                                           TokenDenylist denylist,
+                                           AuthPrincipalCache principals,
+                                           SecurityVersionService securityVersions,
+                                           @Value("${security.jwt.claims-only-auth:false}") boolean claimsOnly,
+                                           RateLimitProperties rateLimits,
+                                           ClientIpResolver clientIps,
+                                           ObjectMapper objectMapper,
+                                           MeterRegistry meterRegistry) throws Exception {
         http
             .csrf(cs -> cs.disable())
             .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -39,15 +85,20 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
                 .requestMatchers(
-                    "/auth/login", "/auth/register", "/auth/logout",
+                    "/auth/login", "/auth/register", "/auth/logout", "/auth/refresh",
                     "/auth/forgot-password", "/auth/reset-password",
+                    "/.well-known/jwks.json",
                     "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html"
                 ).permitAll()
+                .requestMatchers("/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             // CORS activated
             .cors(Customizer.withDefaults())
-            .addFilterBefore(new JwtCookieAuthFilter(jwt, userRepo), UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(new JwtCookieAuthFilter(tokens, denylist, principals, securityVersions, claimsOnly), UsernamePasswordAuthenticationFilter.class)
+            // shed abusive traffic before any token check, body validation or password hashing
+            .addFilterBefore(new RateLimitFilter(rateLimits, clientIps, objectMapper, meterRegistry), JwtCookieAuthFilter.class);
 
         return http.build();
     }
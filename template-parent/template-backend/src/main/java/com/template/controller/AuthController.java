@@ -4,11 +4,18 @@ import com.template.mapper.UserMapper;
 import com.template.service.AuthService;
 import com.template.dto.ForgotPasswordRequestDTO;
 import com.template.service.ForgotPasswordService;
+import com.template.service.RefreshTokenService;
+import com.template.entity.User;
 import com.template.dto.ResetPasswordRequestDTO;
 import com.template.dto.LoginRequestDTO;
 import com.template.dto.RegisterRequestDTO;
 import com.template.dto.UserResponseDTO;
+import com.template.security.ClientIpResolver;
+import com.template.security.SecurityVersionService;
 import com.template.security.jwt.JwtService;
+import com.template.security.jwt.TokenDenylist;
+import com.template.security.jwt.VerifiedTokenCache;
+import io.jsonwebtoken.JwtException;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.headers.Header;
@@ -22,10 +29,14 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -38,24 +49,45 @@ public class AuthController {
 
     private static final Logger log = LoggerFactory.getLogger(AuthController.class);
 
+    private static final Duration ACCESS_TTL = Duration.ofMinutes(15);
+    private static final String REFRESH_COOKIE = "refresh_token";
+
     private final AuthService service;
     private final JwtService jwt;
     private final ForgotPasswordService forgotPasswordService;
+    private final VerifiedTokenCache tokens;
+    private final TokenDenylist denylist;
+    private final RefreshTokenService refreshTokens;
+    private final ClientIpResolver clientIps;
+    private final CorsConfigurationSource cors;
 
     @Value("${app.front.reset-url}")
     private String frontResetUrlBase;
 
-    public AuthController(AuthService service, JwtService jwt, ForgotPasswordService forgotPasswordService) {
+    public AuthController(AuthService service,
+                          JwtService jwt,
+                          ForgotPasswordService forgotPasswordService,
+                          VerifiedTokenCache tokens,
+                          TokenDenylist denylist,
+                          RefreshTokenService refreshTokens,
+                          ClientIpResolver clientIps,
+                          CorsConfigurationSource cors) {
         this.service = service;
         this.jwt = jwt;
         this.forgotPasswordService = forgotPasswordService;
+        this.tokens = tokens;
+        this.denylist = denylist;
+        this.refreshTokens = refreshTokens;
+        this.clientIps = clientIps;
+        this.cors = cors;
     }
 
     @Operation(
         summary = "Log in and set the access token cookie",
         description = """
-            Authenticates a user and sets a short-lived JWT in an HttpOnly cookie named `access_token`.
-            The cookie uses `SameSite=None` (cross-site) and should be `secure=true` in production (HTTPS).
+            Authenticates a user and sets a short-lived JWT in an HttpOnly cookie named `access_token`,
+            plus a long-lived, single-use `refresh_token` cookie (path `/auth`) accepted by `/auth/refresh`.
+            The cookies use `SameSite=None` (cross-site) and should be `secure=true` in production (HTTPS).
             """,
         requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
             required = true,
@@ -76,7 +108,7 @@ public class AuthController {
                 headers = {
                     @Header(
                         name = "Set-Cookie",
-                        description = "HttpOnly cookie containing a short-lived JWT (`access_token`).",
+                        description = "HttpOnly cookies: short-lived JWT (`access_token`) and refresh token (`refresh_token`).",
                         schema = @Schema(type = "string")
                     )
                 },
@@ -93,35 +125,103 @@ public class AuthController {
             ),
             @ApiResponse(responseCode = "400", description = "Validation error."),
             @ApiResponse(responseCode = "401", description = "Invalid credentials."),
-            @ApiResponse(responseCode = "500", description = "Unexpected server error.")
+            @ApiResponse(responseCode = "500", description = "Unexpected server error."),
+            @ApiResponse(responseCode = "503", description = "Password hashing overloaded (see Retry-After).")
         }
     )
     @PostMapping("/login")
     public ResponseEntity<UserResponseDTO> login(@Valid @RequestBody LoginRequestDTO dto) {
         var user = service.login(dto);
+        var refresh = refreshTokens.issue(user);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, accessCookie(user).toString())
+                .header(HttpHeaders.SET_COOKIE, refreshCookie(refresh).toString())
+                .body(UserMapper.toDTO(user));
+    }
+
+    @Operation(
+        summary = "Refresh the access token",
+        description = """
+            Exchanges the `refresh_token` cookie for a new `access_token` without checking the password.
+            The refresh token is single-use: a new one is returned and its idle expiry slides.
+            Presenting an already used refresh token revokes every token of that login.
+            Browser calls must come from an allowed CORS origin.
+            """,
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "New `access_token` and `refresh_token` cookies are set.",
+                content = @Content(schema = @Schema(implementation = UserResponseDTO.class))
+            ),
+            @ApiResponse(responseCode = "401", description = "Missing, expired, revoked or reused refresh token."),
+            @ApiResponse(responseCode = "403", description = "Request sent from an origin that is not allowed.")
+        }
+    )
+    @PostMapping("/refresh")
+    public ResponseEntity<UserResponseDTO> refresh(
+            @CookieValue(name = REFRESH_COOKIE, required = false) String refreshToken,
+            HttpServletRequest request) {
+        requireAllowedOrigin(request);
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Missing refresh token");
+        }
+        var rotation = refreshTokens.rotate(refreshToken);
 
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, accessCookie(rotation.user()).toString())
+                .header(HttpHeaders.SET_COOKIE, refreshCookie(rotation.next()).toString())
+                .body(UserMapper.toDTO(rotation.user()));
+    }
+
+    // Refresh is a state-changing POST authorised by a cookie alone (CSRF is off): a forced rotation from another
+    // site would trip reuse detection and log the user out. Browsers always send Origin on POST; the frontend
+    // calls server-to-server without one.
+    private void requireAllowedOrigin(HttpServletRequest request) {
+        String origin = request.getHeader(HttpHeaders.ORIGIN);
+        if (origin == null) {
+            return;
+        }
+        CorsConfiguration config = cors.getCorsConfiguration(request);
+        if (config == null || config.checkOrigin(origin) == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Origin not allowed");
+        }
+    }
+
+    private ResponseCookie accessCookie(User user) {
         String accessToken = jwt.generateToken(
             user.getEmail(),
-            15 * 60,
-            Map.of("roles", user.getRoles())
+            ACCESS_TTL.toSeconds(),
+            Map.of("roles", user.getRoles(),
+                   SecurityVersionService.CLAIM, user.getSecurityVersion())
         );
 
-        ResponseCookie cookie = ResponseCookie.from("access_token", accessToken)
+        return ResponseCookie.from("access_token", accessToken)
                 .httpOnly(true)
                 .secure(false) // false for HTTP (dev), true for HTTPS (prod)
                 .path("/")
-                .maxAge(Duration.ofMinutes(15))
+                .maxAge(ACCESS_TTL)
                 .sameSite("None")
                 .build();
+    }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.SET_COOKIE, cookie.toString())
-                .body(UserMapper.toDTO(user));
+    private ResponseCookie refreshCookie(RefreshTokenService.IssuedRefreshToken refresh) {
+        return ResponseCookie.from(REFRESH_COOKIE, refresh.value())
+                .httpOnly(true)
+                .secure(false) // false for HTTP (dev), true for HTTPS (prod)
+                .path("/auth") // only sent to /auth/refresh and /auth/logout
+                .maxAge(Duration.between(Instant.now(), refresh.expiresAt()))
+                .sameSite("Strict") // never attached to cross-site requests
+                .build();
     }
 
     @Operation(
         summary = "Log out and clear the access token cookie",
-        description = "Logs out the current user by clearing the `access_token` cookie.",
+        description = """
+            Logs out the current user by clearing the `access_token` and `refresh_token` cookies.
+            The token id (`jti`) is also denylisted until the token expires, so a copied token stops working,
+            and the refresh token family is revoked.
+            """,
         security = { @SecurityRequirement(name = "cookieAuth") },
         responses = {
             @ApiResponse(
@@ -130,7 +230,7 @@ public class AuthController {
                 headers = {
                     @Header(
                         name = "Set-Cookie",
-                        description = "Clearing cookie (`access_token`) with Max-Age=0.",
+                        description = "Clearing cookies (`access_token`, `refresh_token`) with Max-Age=0.",
                         schema = @Schema(type = "string")
                     )
                 }
@@ -140,7 +240,20 @@ public class AuthController {
         }
     )
     @PostMapping("/logout")
-    public ResponseEntity<Void> logout() {
+    public ResponseEntity<Void> logout(@CookieValue(name = "access_token", required = false) String accessToken,
+                                       @CookieValue(name = REFRESH_COOKIE, required = false) String refreshToken) {
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokens.revoke(refreshToken);
+        }
+        if (accessToken != null && !accessToken.isBlank()) {
+            try {
+                var claims = tokens.verify(accessToken);
+                denylist.revoke(claims.getId(), claims.getExpiration());
+            } catch (JwtException | IllegalArgumentException e) {
+                // expired or invalid token: nothing to revoke
+                log.debug("Logout with an unusable token: {}", e.getMessage());
+            }
+        }
         ResponseCookie cookie = ResponseCookie.from("access_token", "")
                 .httpOnly(true)
                 .secure(false) // set to true in production
@@ -148,9 +261,17 @@ public class AuthController {
                 .maxAge(Duration.ZERO)  // delete cookie
                 .sameSite("None")
                 .build();
+        ResponseCookie refreshCookie = ResponseCookie.from(REFRESH_COOKIE, "")
+                .httpOnly(true)
+                .secure(false) // set to true in production
+                .path("/auth")
+                .maxAge(Duration.ZERO)  // delete cookie
+                .sameSite("Strict")
+                .build();
 
         return ResponseEntity.noContent()
                 .header(HttpHeaders.SET_COOKIE, cookie.toString())
+                .header(HttpHeaders.SET_COOKIE, refreshCookie.toString())
                 .build();
     }
 
@@ -178,7 +299,8 @@ public class AuthController {
             @ApiResponse(responseCode = "200", description = "User successfully registered",
                 content = @Content(schema = @Schema(implementation = UserResponseDTO.class))),
             @ApiResponse(responseCode = "400", description = "Validation error"),
-            @ApiResponse(responseCode = "409", description = "Email already used")
+            @ApiResponse(responseCode = "409", description = "Email already used"),
+            @ApiResponse(responseCode = "503", description = "Password hashing overloaded (see Retry-After)")
         }
     )
     @PostMapping("/register")
@@ -224,7 +346,7 @@ public class AuthController {
     public ResponseEntity<?> forgotPassword(@Valid @RequestBody ForgotPasswordRequestDTO request,
                                             HttpServletRequest http,
                                             java.util.Locale locale) {
-        String ip = extractClientIp(http);
+        var ip = clientIps.rateKey(clientIps.resolve(http));
         // on passe la locale au service
         forgotPasswordService.requestReset(request.email(), ip, frontResetUrlBase, locale);
         return ResponseEntity.ok("If the email exists, a reset link has been sent.");
@@ -268,7 +390,8 @@ public class AuthController {
                     schema = @Schema(example = "Invalid or expired token.")
                 )
             ),
-            @ApiResponse(responseCode = "500", description = "Unexpected server error")
+            @ApiResponse(responseCode = "500", description = "Unexpected server error"),
+            @ApiResponse(responseCode = "503", description = "Password hashing overloaded (see Retry-After)")
         }
     )
     @PostMapping("/reset-password")
@@ -282,20 +405,4 @@ public class AuthController {
         return ResponseEntity.ok("Password has been reset.");
     }
 
-    /**
-     * Extracts the client IP from reverse proxy headers when present.
-     * Checks `X-Forwarded-For` (first entry) and `X-Real-IP` before falling back to the remote address.
-     */
-    private String extractClientIp(HttpServletRequest request) {
-        // Proxy headers handling
-        String xf = request.getHeader("X-Forwarded-For");
-        if (xf != null && !xf.isBlank()) {
-            return xf.split(",")[0].trim();
-        }
-        String xr = request.getHeader("X-Real-IP");
-        if (xr != null && !xr.isBlank()) {
-            return xr.trim();
-        }
-        return request.getRemoteAddr();
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package com.template.controller;
+
+import com.template.security.jwt.JwtService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@Tag(name = "Keys", description = "Public keys used to verify access tokens")
+public class JwksController {
+
+    private final JwtService jwt;
+
+    public JwksController(JwtService jwt) {
+        this.jwt = jwt;
+    }
+
+    @Operation(
+        summary = "JSON Web Key Set",
+        description = """
+            Public keys (ES256 mode) that verify the `access_token` cookie, indexed by `kid`.
+            Clients should cache the document and refetch it only when they meet an unknown `kid`.
+            Empty in HS256 mode.
+            """,
+        responses = @ApiResponse(responseCode = "200", description = "JWK set.")
+    )
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(jwt.jwks());
+    }
+}
@@ -0,0 +1,159 @@
+package com.template.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only side of the routing set up in {@code DataSourceConfig}: connections come from the replica pools in
+ * round robin, skipping replicas that failed their last health check or lag more than {@code maxLag}.
+ * With no usable replica (or when every candidate refuses a connection) the primary serves the read.
+ * Publishes {@code db.replica.up}, {@code db.replica.lag} per replica and {@code db.routing.reads{target}}.
+ */
+public class ReadReplicaDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaDataSource.class);
+
+    private static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final double maxLagSeconds;
+    private final String lagQuery;
+    private final Counter primaryReads;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadReplicaDataSource(DataSource primary, List<Replica> replicas, Duration maxLag, String lagQuery,
+                                 MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.lagQuery = lagQuery == null ? "" : lagQuery.trim();
+        this.primaryReads = meterRegistry.counter("db.routing.reads", "target", PRIMARY);
+        for (Replica r : this.replicas) {
+            r.reads = meterRegistry.counter("db.routing.reads", "target", r.name);
+            Gauge.builder("db.replica.up", r, x -> x.up ? 1 : 0)
+                    .tag("replica", r.name)
+                    .description("1 when the replica passed its last health check")
+                    .register(meterRegistry);
+            Gauge.builder("db.replica.lag", r, x -> x.lagSeconds)
+                    .tag("replica", r.name)
+                    .baseUnit("seconds")
+                    .description("Replication delay measured by the last health check (NaN when unknown)")
+                    .register(meterRegistry);
+        }
+    }
+
+    /** One replica pool and its last health check outcome. */
+    public static final class Replica {
+        private final String name;
+        private final HikariDataSource pool;
+        // optimistic until the first check: a replica down at startup costs one failed connection attempt
+        private volatile boolean up = true;
+        private volatile double lagSeconds = Double.NaN;
+        private Counter reads;
+
+        public Replica(String name, HikariDataSource pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int n = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, n));
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get((start + i) % n);
+            if (!usable(r)) {
+                continue;
+            }
+            try {
+                Connection c = r.pool.getConnection();
+                r.reads.increment();
+                return c;
+            } catch (SQLException e) {
+                r.up = false;
+                log.warn("Replica {} unavailable, marked down: {}", r.name, e.getMessage());
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials are configured per pool");
+    }
+
+    private boolean usable(Replica r) {
+        return r.up && (lagQuery.isEmpty() || r.lagSeconds <= maxLagSeconds);
+    }
+
+    /** Validates every replica and, with a lag query, measures how far behind the primary it is. */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica r : replicas) {
+            boolean wasUsable = usable(r);
+            try (Connection c = r.pool.getConnection()) {
+                if (!c.isValid(2)) {
+                    throw new SQLException("connection not valid");
+                }
+                r.lagSeconds = lagQuery.isEmpty() ? 0 : lagSeconds(c);
+                r.up = true;
+            } catch (SQLException e) {
+                r.up = false;
+                r.lagSeconds = Double.NaN;
+                log.debug("Replica {} health check failed: {}", r.name, e.getMessage());
+            }
+            boolean usable = usable(r);
+            if (usable != wasUsable) {
+                log.warn("Replica {} {} (lag {} s)", r.name, usable ? "back in rotation" : "out of rotation", r.lagSeconds);
+            }
+        }
+    }
+
+    // NaN when replication is stopped (Seconds_Behind_Source is NULL) or the query returns no row
+    private double lagSeconds(Connection c) throws SQLException {
+        try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery(lagQuery)) {
+            if (!rs.next()) {
+                return Double.NaN;
+            }
+            ResultSetMetaData meta = rs.getMetaData();
+            int column = 1;
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                String label = meta.getColumnLabel(i);
+                if ("Seconds_Behind_Source".equalsIgnoreCase(label) || "Seconds_Behind_Master".equalsIgnoreCase(label)) {
+                    column = i;
+                    break;
+                }
+            }
+            double lag = rs.getDouble(column);
+            return rs.wasNull() ? Double.NaN : lag;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (Replica r : replicas) {
+            r.pool.close();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.template.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Read replicas used for read-only transactions ({@code app.datasource.replica.*}), e.g.
+ * <pre>
+ * app.datasource.replica.enabled=true
+ * app.datasource.replica.nodes.r1.url=jdbc:mysql://replica1:3306/DATABASENAME
+ * app.datasource.replica.nodes.r2.url=jdbc:mysql://replica2:3306/DATABASENAME
+ * app.datasource.replica.lag-query=SHOW REPLICA STATUS
+ * </pre>
+ * Node credentials default to {@code spring.datasource.username/password}. Replicas are checked every
+ * {@code app.datasource.replica.check-interval-ms} (see {@link ReadReplicaDataSource#checkReplicas()}).
+ */
+@ConfigurationProperties(prefix = "app.datasource.replica")
+public record ReplicaProperties(
+        @DefaultValue("false") boolean enabled,
+        Map<String, Node> nodes,
+        // connections per replica pool
+        @DefaultValue("10") int maxPoolSize,
+        // a down replica must not hold a request long before the primary takes over
+        @DefaultValue("2s") Duration connectionTimeout,
+        // replicas further behind (or with an unknown lag) are skipped until they catch up
+        @DefaultValue("10s") Duration maxLag,
+        // seconds behind the primary: first column, or Seconds_Behind_Source/Master of SHOW REPLICA/SLAVE STATUS;
+        // empty = no lag check
+        @DefaultValue("") String lagQuery
+) {
+
+    public ReplicaProperties {
+        nodes = nodes == null ? Map.of() : Map.copyOf(nodes);
+    }
+
+    public record Node(String url, String username, String password, String driverClassName) {}
+}
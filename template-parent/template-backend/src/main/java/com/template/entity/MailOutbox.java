@@ -0,0 +1,149 @@
+package com.template.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// Mail waiting for (or done with) delivery. Written in the transaction of the business change,
+// sent afterwards by MailOutboxDispatcher, so a queued mail survives an SMTP outage or a restart.
+@Entity
+@Table(name = "mail_outbox",
+       indexes = {
+           @Index(name = "idx_mo_status_next", columnList = "status, next_attempt_at")
+       })
+public class MailOutbox {
+
+    // Template (MailTemplateEngine) and the variable the payload goes to
+    public enum Kind {
+        PASSWORD_RESET("reset", "link");
+
+        private final String template;
+        private final String payloadVariable;
+
+        Kind(String template, String payloadVariable) {
+            this.template = template;
+            this.payloadVariable = payloadVariable;
+        }
+
+        public String template() {
+            return template;
+        }
+
+        public String payloadVariable() {
+            return payloadVariable;
+        }
+    }
+
+    // PENDING -> SENT, or DEAD once attempts are exhausted / the payload expired
+    public enum Status { PENDING, SENT, DEAD }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Kind kind;
+
+    @Column(nullable = false, length = 180)
+    private String recipient;
+
+    // BCP 47 tag
+    @Column(nullable = false, length = 35)
+    private String locale;
+
+    // What the template needs (reset link), encrypted (OutboxPayloadCipher); cleared once sent, dead or expired
+    @Column(length = 1024)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Due time; pushed forward by the lease while a worker holds the row, then by the backoff
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // Not worth sending after this (link already expired)
+    @Column
+    private Instant expiresAt;
+
+    @Column
+    private Instant sentAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    // getters/setters/constructors
+
+    public MailOutbox() {}
+
+    public MailOutbox(Kind kind, String recipient, String locale, String payload,
+                      Instant createdAt, Instant expiresAt) {
+        this.kind = kind;
+        this.recipient = recipient;
+        this.locale = locale;
+        this.payload = payload;
+        this.status = Status.PENDING;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && now.isAfter(expiresAt);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getLocale() {
+        return locale;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Instant getSentAt() {
+        return sentAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
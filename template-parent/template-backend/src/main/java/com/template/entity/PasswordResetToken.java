@@ -7,7 +7,10 @@ import java.time.Instant;
 @Table(name = "password_reset_tokens",
        indexes = {
            @Index(name = "idx_prt_token", columnList = "token", unique = true),
-           @Index(name = "idx_prt_user_id", columnList = "user_id")
+           @Index(name = "idx_prt_token_hash", columnList = "token_hash", unique = true),
+           @Index(name = "idx_prt_user_id", columnList = "user_id"),
+           @Index(name = "idx_prt_expires_at", columnList = "expires_at"),
+           @Index(name = "idx_prt_used_at", columnList = "used_at")
        })
 public class PasswordResetToken {
 
@@ -20,16 +23,21 @@ public class PasswordResetToken {
     @JoinColumn(name = "user_id")
     private User user;
 
-    @Column(nullable = false, unique = true, length = 180)
+    // Raw token: plain storage mode, and rows written before hashing until they are migrated
+    @Column(unique = true, length = 180)
     private String token;
 
+    // SHA-256 of the token (hash storage mode): 32 fixed bytes, the raw secret is never stored
+    @Column(name = "token_hash", columnDefinition = "binary(32)")
+    private byte[] tokenHash;
+
     @Column(nullable = false)
     private Instant createdAt;
 
-    @Column(nullable = false)
+    @Column(name = "expires_at", nullable = false)
     private Instant expiresAt;
 
-    @Column
+    @Column(name = "used_at")
     private Instant usedAt;
 
     public boolean isExpired() {
@@ -51,6 +59,13 @@ public class PasswordResetToken {
         this.expiresAt = expiresAt;
     }
 
+    public PasswordResetToken(User user, byte[] tokenHash, Instant createdAt, Instant expiresAt) {
+        this.user = user;
+        this.tokenHash = tokenHash;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
 	public Long getId() {
 		return id;
 	}
@@ -75,6 +90,14 @@ public class PasswordResetToken {
 		this.token = token;
 	}
 
+	public byte[] getTokenHash() {
+		return tokenHash;
+	}
+
+	public void setTokenHash(byte[] tokenHash) {
+		this.tokenHash = tokenHash;
+	}
+
 	public Instant getCreatedAt() {
 		return createdAt;
 	}
@@ -0,0 +1,41 @@
+package com.template.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// Shared fixed-window counter of the cluster rate limiter (one row per scope, window and key)
+@Entity
+@Table(name = "rate_limit_counters",
+       indexes = {
+           @Index(name = "idx_rlc_expires_at", columnList = "expires_at")
+       })
+public class RateLimitCounter {
+
+    // "<scope>:<window start, epoch s>:<SHA-256 prefix of the key>" (emails/IPs are not stored as is)
+    @Id
+    @Column(length = 96)
+    private String id;
+
+    @Column(nullable = false)
+    private long hits;
+
+    // End of the window; rows are purged after it
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // getters/setters/constructors
+
+    public RateLimitCounter() {}
+
+    public String getId() {
+        return id;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,109 @@
+package com.template.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "refresh_tokens",
+       indexes = {
+           @Index(name = "idx_rt_token_hash", columnList = "token_hash", unique = true),
+           @Index(name = "idx_rt_family_id", columnList = "family_id"),
+           @Index(name = "idx_rt_user_id", columnList = "user_id")
+       })
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    // SHA-256 (hex) of the cookie value; the raw token is never stored
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    // Every rotation of one login shares the family; reuse of a spent token revokes the whole family
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // Sliding (idle) expiry of this token
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    // Absolute expiry of the login session, carried over on each rotation
+    @Column(nullable = false)
+    private Instant familyExpiresAt;
+
+    @Column
+    private Instant usedAt;
+
+    @Column
+    private Instant revokedAt;
+
+    public boolean isExpired() {
+        return Instant.now().isAfter(expiresAt);
+    }
+
+    public boolean isUsed() {
+        return usedAt != null;
+    }
+
+    public boolean isRevoked() {
+        return revokedAt != null;
+    }
+
+    // getters/setters/constructors
+
+    public RefreshToken() {}
+
+    public RefreshToken(User user, String tokenHash, String familyId,
+                        Instant createdAt, Instant expiresAt, Instant familyExpiresAt) {
+        this.user = user;
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+        this.familyExpiresAt = familyExpiresAt;
+    }
+
+	public Long getId() {
+		return id;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	public String getTokenHash() {
+		return tokenHash;
+	}
+
+	public String getFamilyId() {
+		return familyId;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public Instant getExpiresAt() {
+		return expiresAt;
+	}
+
+	public Instant getFamilyExpiresAt() {
+		return familyExpiresAt;
+	}
+
+	public Instant getUsedAt() {
+		return usedAt;
+	}
+
+	public Instant getRevokedAt() {
+		return revokedAt;
+	}
+}
@@ -0,0 +1,53 @@
+package com.template.entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+//Roles stored as bits of users.role_mask (bit = ordinal).
+//Persisted order: append new roles at the end, never reorder or remove one.
+public enum Role {
+    USER,
+    ADMIN;
+
+    private static final Role[] VALUES = values();
+    // Role name sets for every mask, built once: getRoles() never allocates
+    private static final List<Set<String>> NAMES;
+
+    static {
+        List<Set<String>> names = new ArrayList<>(1 << VALUES.length);
+        for (long mask = 0; mask < (1L << VALUES.length); mask++) {
+            List<String> set = new ArrayList<>();
+            for (Role r : VALUES) {
+                if ((mask & r.bit()) != 0) {
+                    set.add(r.name());
+                }
+            }
+            names.add(Set.copyOf(set));
+        }
+        NAMES = List.copyOf(names);
+    }
+
+    public long bit() {
+        return 1L << ordinal();
+    }
+
+    /** Mask of every defined role (bits outside it are ignored). */
+    public static long allMask() {
+        return (1L << VALUES.length) - 1;
+    }
+
+    public static Set<String> names(long mask) {
+        return NAMES.get((int) (mask & allMask()));
+    }
+
+    /** Mask of role names; unknown names throw IllegalArgumentException. */
+    public static long mask(Collection<String> names) {
+        long mask = 0;
+        for (String name : names) {
+            mask |= valueOf(name).bit();
+        }
+        return mask;
+    }
+}
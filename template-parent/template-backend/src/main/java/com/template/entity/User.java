@@ -2,7 +2,6 @@ package com.template.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
-import java.util.HashSet;
 import java.util.Set;
 
 @Entity
@@ -31,13 +30,13 @@ public class User {
     @Column(name = "last_name", nullable = false, length = 80)
     private String lastName;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(
-            name = "user_roles",
-            joinColumns = @JoinColumn(name = "user_id")
-    )
-    @Column(name = "role")
-    private Set<String> roles = new HashSet<>();
+    // One bit per Role: no user_roles select/join on lookups (the legacy table is read once by UserRoleBackfill)
+    @Column(name = "role_mask", nullable = false)
+    private long roleMask;
+
+    // Bumped on password reset / role change; tokens carrying an older "sv" claim are rejected
+    @Column(name = "security_version", nullable = false)
+    private int securityVersion;
 
 	public Long getId() {
 		return id;
@@ -75,11 +74,28 @@ public class User {
 		this.lastName = lastName;
 	}
 
+	/** Read-only view of the role mask; use addRole/setRoles to change it. */
 	public Set<String> getRoles() {
-		return roles;
+		return Role.names(roleMask);
 	}
 
 	public void setRoles(Set<String> roles) {
-		this.roles = roles;
+		this.roleMask = Role.mask(roles);
+	}
+
+	public void addRole(Role role) {
+		this.roleMask |= role.bit();
+	}
+
+	public long getRoleMask() {
+		return roleMask;
+	}
+
+	public int getSecurityVersion() {
+		return securityVersion;
+	}
+
+	public void setSecurityVersion(int securityVersion) {
+		this.securityVersion = securityVersion;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.template.repository;
+
+import com.template.entity.MailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    // Outbox reads stay on the primary (read-write transaction): rows are polled right after being enqueued and
+    // loaded right after being claimed, a replica would miss new rows and return attempts before the claim
+    @Transactional
+    @Query("select m.id from MailOutbox m where m.status = :status and m.nextAttemptAt <= :now order by m.nextAttemptAt")
+    List<Long> findDueIds(@Param("status") MailOutbox.Status status, @Param("now") Instant now, Pageable page);
+
+    @Override
+    @Transactional
+    List<MailOutbox> findAllById(Iterable<Long> ids);
+
+    // Takes the row for one attempt: only one worker (on any instance) wins, and the row comes back
+    // on its own after leaseUntil if that worker dies before recording the outcome
+    @Transactional
+    @Modifying
+    @Query("""
+            update MailOutbox m set m.attempts = m.attempts + 1, m.nextAttemptAt = :leaseUntil
+            where m.id = :id and m.status = :status and m.nextAttemptAt <= :now""")
+    int claim(@Param("id") Long id, @Param("status") MailOutbox.Status status,
+              @Param("now") Instant now, @Param("leaseUntil") Instant leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update MailOutbox m set m.status = :status, m.sentAt = :now, m.payload = null, m.lastError = null
+            where m.id = :id""")
+    int markSent(@Param("id") Long id, @Param("status") MailOutbox.Status status, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update MailOutbox m set m.status = :status, m.nextAttemptAt = :nextAttemptAt, m.lastError = :error
+            where m.id = :id""")
+    int markFailed(@Param("id") Long id, @Param("status") MailOutbox.Status status,
+                   @Param("nextAttemptAt") Instant nextAttemptAt, @Param("error") String error);
+
+    // Given up: the payload (reset link) is not kept either
+    @Transactional
+    @Modifying
+    @Query("""
+            update MailOutbox m set m.status = :status, m.payload = null, m.lastError = :error
+            where m.id = :id""")
+    int markDead(@Param("id") Long id, @Param("status") MailOutbox.Status status, @Param("error") String error);
+
+    // Pending mails whose link expired: dead, payload dropped without waiting for their next attempt
+    @Transactional
+    @Modifying
+    @Query("""
+            update MailOutbox m set m.status = :dead, m.payload = null, m.lastError = 'expired before delivery'
+            where m.status = :pending and m.expiresAt < :now""")
+    int expirePending(@Param("pending") MailOutbox.Status pending, @Param("dead") MailOutbox.Status dead,
+                      @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from MailOutbox m where m.status <> :pending and m.createdAt < :threshold")
+    int deleteAllDoneBefore(@Param("pending") MailOutbox.Status pending, @Param("threshold") Instant threshold);
+}
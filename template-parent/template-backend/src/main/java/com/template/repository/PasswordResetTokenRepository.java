@@ -1,6 +1,7 @@
 package com.template.repository;
 
 import com.template.entity.PasswordResetToken;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -8,19 +9,82 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
 
     Optional<PasswordResetToken> findByToken(String token);
 
+    Optional<PasswordResetToken> findByTokenHash(byte[] tokenHash);
+
+    // --- single-use consumption: one conditional UPDATE decides, concurrent resets cannot both win ---
+
     @Transactional
     @Modifying
-    @Query("delete from PasswordResetToken t where t.expiresAt < :now")
-    int deleteAllExpired(@Param("now") Instant now);
+    @Query("update PasswordResetToken t set t.usedAt = :now where t.tokenHash = :tokenHash and t.usedAt is null and t.expiresAt > :now")
+    int markUsedByHash(@Param("tokenHash") byte[] tokenHash, @Param("now") Instant now);
 
     @Transactional
     @Modifying
-    @Query("delete from PasswordResetToken t where t.usedAt is not null and t.usedAt < :threshold")
-    int deleteAllUsedBefore(@Param("threshold") Instant threshold);
+    @Query("update PasswordResetToken t set t.usedAt = :now where t.token = :token and t.usedAt is null and t.expiresAt > :now")
+    int markUsedByToken(@Param("token") String token, @Param("now") Instant now);
+
+    // Read-only pre-check (unique index on token_hash): a garbage or spent token is refused before any password hashing
+    @Query("select count(t) > 0 from PasswordResetToken t where t.tokenHash = :tokenHash and t.usedAt is null and t.expiresAt > :now")
+    boolean existsValidByHash(@Param("tokenHash") byte[] tokenHash, @Param("now") Instant now);
+
+    @Query("select count(t) > 0 from PasswordResetToken t where t.token = :token and t.usedAt is null and t.expiresAt > :now")
+    boolean existsValidByToken(@Param("token") String token, @Param("now") Instant now);
+
+    @Query("select t.user.id as userId, t.user.email as email from PasswordResetToken t where t.tokenHash = :tokenHash")
+    Optional<TokenOwner> findOwnerByHash(@Param("tokenHash") byte[] tokenHash);
+
+    @Query("select t.user.id as userId, t.user.email as email from PasswordResetToken t where t.token = :token")
+    Optional<TokenOwner> findOwnerByToken(@Param("token") String token);
+
+    /** Marks the token used if it is valid and returns its owner; empty when unknown, used or expired. */
+    default Optional<TokenOwner> consumeByHash(byte[] tokenHash, Instant now) {
+        return markUsedByHash(tokenHash, now) == 1 ? findOwnerByHash(tokenHash) : Optional.empty();
+    }
+
+    default Optional<TokenOwner> consumeByToken(String token, Instant now) {
+        return markUsedByToken(token, now) == 1 ? findOwnerByToken(token) : Optional.empty();
+    }
+
+    // --- plain -> hash migration ---
+
+    @Query("select t.id as id, t.token as token from PasswordResetToken t where t.tokenHash is null and t.token is not null order by t.id")
+    List<PlainToken> findPlainTokens(Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("update PasswordResetToken t set t.tokenHash = :tokenHash, t.token = null where t.id = :id and t.token = :token")
+    int replaceWithHash(@Param("id") Long id, @Param("token") String token, @Param("tokenHash") byte[] tokenHash);
+
+    // --- cleanup in chunks (ChunkedDeleter): ids through idx_prt_expires_at / idx_prt_used_at, delete by primary key ---
+    // Read on the primary (read-write transaction): a replica would hand back ids the previous chunk just deleted
+
+    @Transactional
+    @Query("select t.id from PasswordResetToken t where t.expiresAt < :now")
+    List<Long> findExpiredIds(@Param("now") Instant now, Pageable page);
+
+    @Transactional
+    @Query("select t.id from PasswordResetToken t where t.usedAt < :threshold")
+    List<Long> findUsedIdsBefore(@Param("threshold") Instant threshold, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("delete from PasswordResetToken t where t.id in :ids")
+    int deleteAllByIds(@Param("ids") List<Long> ids);
+
+    interface TokenOwner {
+        Long getUserId();
+        String getEmail();
+    }
+
+    interface PlainToken {
+        Long getId();
+        String getToken();
+    }
 }
\ No newline at end of file
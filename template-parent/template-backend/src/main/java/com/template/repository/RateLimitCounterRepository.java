@@ -0,0 +1,35 @@
+package com.template.repository;
+
+import com.template.entity.RateLimitCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RateLimitCounterRepository extends JpaRepository<RateLimitCounter, String> {
+
+    // Atomic in the DB: concurrent nodes never lose each other's increments
+    @Transactional
+    @Modifying
+    @Query("update RateLimitCounter c set c.hits = c.hits + :delta where c.id = :id")
+    int increment(@Param("id") String id, @Param("delta") long delta);
+
+    // Plain insert (no merge/select first); a concurrent insert of the same id fails on the primary key
+    @Transactional
+    @Modifying
+    @Query(value = "insert into rate_limit_counters (id, hits, expires_at) values (:id, :hits, :expiresAt)",
+           nativeQuery = true)
+    int insert(@Param("id") String id, @Param("hits") long hits, @Param("expiresAt") Instant expiresAt);
+
+    @Query("select c.hits from RateLimitCounter c where c.id = :id")
+    Optional<Long> findHits(@Param("id") String id);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RateLimitCounter c where c.expiresAt < :now")
+    int deleteAllExpired(@Param("now") Instant now);
+}
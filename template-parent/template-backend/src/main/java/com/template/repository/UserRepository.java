@@ -1,11 +1,96 @@
 package com.template.repository;
 
 import com.template.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    // Read-only authentication view: DTO projection (select of these columns only), no managed entity
+    record AuthPrincipal(Long id, String email, String password, long roleMask, int securityVersion) {}
+
+    // Primary only (read-write transaction): reloaded right after an eviction (reset, role change), a lagging
+    // replica would put the old hash and security version back in AuthPrincipalCache for its whole TTL
+    @Transactional
+    Optional<AuthPrincipal> findAuthPrincipalByEmail(String email);
+
     boolean existsByEmail(String email);
+
+    // Scalar stream for EmailBloomFilter: no entities in the persistence context, rows fetched in chunks
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
+
+    @Query("select max(u.id) from User u")
+    Long findMaxId();
+
+    // EmailBloomFilter catch-up: accounts created since the last sync, on any instance (primary key order).
+    // Primary only (read-write transaction): a lagging replica would skip them for good
+    record EmailRow(Long id, String email) {}
+
+    @Transactional
+    List<EmailRow> findByIdGreaterThanOrderById(Long id, Pageable page);
+
+    // Compare-and-set: a password changed meanwhile (reset) is never overwritten by a login rehash
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newHash where u.id = :id and u.password = :oldHash")
+    int updatePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    // Password reset: new hash + security version bump (every token issued before is stale), no entity load
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newHash, u.securityVersion = u.securityVersion + 1 where u.id = :id")
+    int resetPassword(@Param("id") Long id, @Param("newHash") String newHash);
+
+    // Signed reset tokens: only the version the token was issued for matches, and the bump consumes it
+    @Transactional
+    @Modifying
+    @Query("""
+            update User u set u.password = :newHash, u.securityVersion = u.securityVersion + 1
+            where u.id = :id and u.securityVersion = :version""")
+    int resetPasswordIfVersion(@Param("id") Long id, @Param("version") int version, @Param("newHash") String newHash);
+
+    // Role change: new mask + security version bump (tokens carrying the old roles are stale)
+    @Transactional
+    @Modifying
+    @Query("""
+            update User u set u.roleMask = :mask, u.securityVersion = u.securityVersion + 1
+            where u.id = :id and u.roleMask <> :mask""")
+    int changeRoles(@Param("id") Long id, @Param("mask") long mask);
+
+    @Query("select u.email from User u where u.id = :id")
+    Optional<String> findEmailById(@Param("id") Long id);
+
+    // --- Role mask backfill (UserRoleBackfill) ---
+
+    interface LegacyRole {
+        Long getUserId();
+        String getRole();
+    }
+
+    @Query("select u.id from User u where u.roleMask = 0 and u.id > :after order by u.id")
+    List<Long> findIdsWithoutRoles(@Param("after") Long after, Pageable page);
+
+    @Query(value = "select r.user_id as userId, r.role as role from user_roles r where r.user_id in (:ids)",
+            nativeQuery = true)
+    List<LegacyRole> findLegacyRoles(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.roleMask = :mask where u.id = :id and u.roleMask = 0")
+    int initRoleMask(@Param("id") Long id, @Param("mask") long mask);
 }
@@ -0,0 +1,96 @@
+package com.template.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.template.repository.UserRepository;
+import com.template.repository.UserRepository.AuthPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Near cache of {@link AuthPrincipal} rows (id, email, password hash, role mask, security version) for the
+ * request filter, {@link CustomUserDetailsService} and login. Keyed by normalized email, bounded by size and
+ * TTL; unknown emails are not cached. Entries are evicted after commit on register, password change/reset and
+ * role change; other replicas see those changes once the TTL expires.
+ * Hit/miss/eviction counters are published under {@code cache.*{cache="auth.principals"}}.
+ */
+@Component
+public class AuthPrincipalCache {
+
+    private final UserRepository repo;
+    private final boolean enabled;
+    private final Cache<String, AuthPrincipal> cache;
+
+    @Autowired
+    public AuthPrincipalCache(UserRepository repo,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.auth.principal-cache.enabled:true}") boolean enabled,
+                              @Value("${app.auth.principal-cache.max-size:10000}") long maxSize,
+                              @Value("${app.auth.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this(repo, meterRegistry, enabled, maxSize, ttlSeconds, Ticker.systemTicker());
+    }
+
+    AuthPrincipalCache(UserRepository repo, MeterRegistry meterRegistry, boolean enabled, long maxSize,
+                       long ttlSeconds, Ticker ticker) {
+        this.repo = repo;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxSize))
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, ttlSeconds)))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.principals");
+    }
+
+    public Optional<AuthPrincipal> get(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        String key = normalize(email);
+        if (!enabled) {
+            return repo.findAuthPrincipalByEmail(key);
+        }
+        // a null from the loader is not stored: absent users are looked up again
+        return Optional.ofNullable(cache.get(key, k -> repo.findAuthPrincipalByEmail(k).orElse(null)));
+    }
+
+    /**
+     * Forgets the entry of {@code email}. Inside a transaction the eviction is deferred until after commit,
+     * otherwise a concurrent reader could re-cache the pre-commit row.
+     */
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        String key = normalize(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(key);
+                }
+            });
+        } else {
+            cache.invalidate(key);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,97 @@
+package com.template.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Picks the BCrypt work factor for this machine: the highest strength in [min, max] whose
+ * median hash time stays under the latency target. Each +1 doubles the work, so the search
+ * walks up from {@code min} and stops as soon as the next step would be over target.
+ */
+public final class BCryptCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCalibrator.class);
+    private static final String SAMPLE = "Calibration-Passw0rd!";
+    private static final int ROUNDS = 3;
+
+    private BCryptCalibrator() {}
+
+    public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        int min = Math.max(4, minStrength);
+        int max = Math.min(31, Math.max(min, maxStrength));
+        BCrypt.hashpw(SAMPLE, BCrypt.gensalt(4)); // class loading / JIT warm-up
+
+        int chosen = min;
+        double millis = medianMillis(min);
+        while (chosen < max && millis * 2 <= targetMillis) {
+            chosen++;
+            millis = medianMillis(chosen);
+        }
+        if (millis > targetMillis && chosen > min) {
+            // the doubling estimate was optimistic: step back
+            chosen--;
+            millis /= 2;
+        }
+        log.info("BCrypt calibrated: strength {} (~{} ms/hash, target {} ms, range {}-{})",
+                chosen, Math.round(millis), targetMillis, min, max);
+        return chosen;
+    }
+
+    private static double medianMillis(int strength) {
+        String salt = BCrypt.gensalt(strength);
+        long[] samples = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(SAMPLE, salt);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[ROUNDS / 2] / 1_000_000.0;
+    }
+
+    /**
+     * BCrypt encoder whose {@code upgradeEncoding} flags hashes whose strength is outside
+     * [{@code minAccepted}, {@code maxAccepted}] instead of comparing with its own strength.
+     * A strength pinned for the cluster passes itself as both bounds (lowering it also takes effect on the next
+     * login); a calibrated one, which differs between nodes and restarts, accepts anything from the configured
+     * minimum up, so users moving between nodes are not rehashed back and forth.
+     */
+    public static class RehashingEncoder extends BCryptPasswordEncoder {
+
+        private static final Pattern COST = Pattern.compile("^\\$2[abxy]?\\$(\\d\\d)\\$");
+
+        private final int strength;
+        private final int minAccepted;
+        private final int maxAccepted;
+
+        public RehashingEncoder(int strength, int minAccepted, int maxAccepted) {
+            super(strength);
+            this.strength = strength;
+            this.minAccepted = minAccepted;
+            this.maxAccepted = maxAccepted;
+        }
+
+        public int strength() {
+            return strength;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            if (encodedPassword == null || encodedPassword.isEmpty()) {
+                return false;
+            }
+            Matcher m = COST.matcher(encodedPassword);
+            if (!m.find()) {
+                return false;
+            }
+            int cost = Integer.parseInt(m.group(1));
+            return cost < minAccepted || cost > maxAccepted;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.template.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the delegate's encode/matches on a dedicated, CPU-sized pool (bulkhead) instead of the
+ * request thread: a burst of logins can only occupy {@code threads} cores plus a bounded queue,
+ * Tomcat workers stay free for cheap authenticated traffic.
+ * A full queue or a wait for a worker longer than {@code maxWait} fails fast with {@link HashingUnavailableException} (503);
+ * a job a worker has picked up is always waited for, and a shed job is never hashed.
+ * Metrics: {@code auth.hashing.queue.depth}, {@code auth.hashing.wait} (time queued before a worker picks the job),
+ * {@code auth.hashing.rejected{reason=queue_full|timeout}}.
+ */
+public class BulkheadPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+    private final long retryAfterSeconds;
+
+    private final Timer waitTimer;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    public BulkheadPasswordEncoder(PasswordEncoder delegate,
+                                   int threads,
+                                   int queueCapacity,
+                                   Duration maxWait,
+                                   long retryAfterSeconds,
+                                   MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                namedDaemonThreads(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxWaitNanos = maxWait.toNanos();
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+
+        Gauge.builder("auth.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password hashing jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing jobs running")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("auth.hashing.wait")
+                .description("Time a password hashing job waited in the queue")
+                .register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("auth.hashing.rejected")
+                .tag("reason", "queue_full")
+                .description("Password hashing jobs shed with a 503")
+                .register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("auth.hashing.rejected")
+                .tag("reason", "timeout")
+                .description("Password hashing jobs shed with a 503")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword); // no hashing involved
+    }
+
+    private <T> T run(Callable<T> job) {
+        final long submitted = System.nanoTime();
+        // whoever flips it first owns the job: the worker runs it, the caller sheds it
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final CountDownLatch started = new CountDownLatch(1);
+        final Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null; // shed while queued, nobody reads the result
+                }
+                started.countDown();
+                waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return job.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedQueueFull.increment();
+            throw new HashingUnavailableException(retryAfterSeconds);
+        }
+
+        try {
+            // maxWait bounds the time queued only; once a worker has the job, the hash is worth waiting for
+            if (!started.await(maxWaitNanos, TimeUnit.NANOSECONDS) && claimed.compareAndSet(false, true)) {
+                if (future.cancel(false) && future instanceof Runnable queued) {
+                    executor.remove(queued);
+                }
+                rejectedTimeout.increment();
+                throw new HashingUnavailableException(retryAfterSeconds);
+            }
+            return future.get();
+        } catch (InterruptedException e) {
+            claimed.set(true);
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new HashingUnavailableException(retryAfterSeconds);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    private static ThreadFactory namedDaemonThreads() {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "pwd-hash-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,98 @@
+package com.template.security;
+
+import com.template.security.ip.CidrTrie;
+import com.template.security.ip.IpAddress;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Client IP of a request, shared by the controllers and the rate-limit filter.
+ * <ul>
+ *   <li>{@code X-Forwarded-For} / {@code X-Real-IP} are only believed when the peer is a trusted proxy;
+ *       X-Forwarded-For is walked right to left, skipping trusted proxies (same rule as Tomcat's RemoteIpValve);</li>
+ *   <li>{@link #rateKey} aggregates addresses per prefix (default /32 for IPv4, /64 for IPv6: one IPv6
+ *       subscriber usually owns a whole /64);</li>
+ *   <li>allow/deny lists are CIDR tries: allowlisted clients (office NAT, monitoring) skip the rate limits,
+ *       denylisted ones are refused.</li>
+ * </ul>
+ */
+@Component
+public class ClientIpResolver {
+
+    private final CidrTrie<Boolean> trustedProxies = new CidrTrie<>();
+    private final CidrTrie<Boolean> allowlist = new CidrTrie<>();
+    private final CidrTrie<Boolean> denylist = new CidrTrie<>();
+    private final int ipv4Prefix;
+    private final int ipv6Prefix;
+
+    public ClientIpResolver(
+            @Value("${app.client-ip.trusted-proxies:10.0.0.0/8,172.16.0.0/12,192.168.0.0/16,100.64.0.0/10,169.254.0.0/16,127.0.0.0/8,::1,fc00::/7,fe80::/10}")
+            List<String> trustedProxies,
+            @Value("${app.client-ip.allowlist:}") List<String> allowlist,
+            @Value("${app.client-ip.denylist:}") List<String> denylist,
+            @Value("${app.client-ip.ipv4-prefix:32}") int ipv4Prefix,
+            @Value("${app.client-ip.ipv6-prefix:64}") int ipv6Prefix) {
+        load(this.trustedProxies, trustedProxies);
+        load(this.allowlist, allowlist);
+        load(this.denylist, denylist);
+        if (ipv4Prefix < 0 || ipv4Prefix > 32 || ipv6Prefix < 0 || ipv6Prefix > 128) {
+            throw new IllegalArgumentException("app.client-ip.ipv4-prefix should be 0-32 and ipv6-prefix 0-128");
+        }
+        this.ipv4Prefix = ipv4Prefix;
+        this.ipv6Prefix = ipv6Prefix;
+    }
+
+    private static void load(CidrTrie<Boolean> trie, List<String> cidrs) {
+        for (String cidr : cidrs) {
+            if (!cidr.isBlank()) {
+                trie.put(cidr, Boolean.TRUE);
+            }
+        }
+    }
+
+    public IpAddress resolve(HttpServletRequest request) {
+        IpAddress peer = IpAddress.parse(request.getRemoteAddr());
+        if (peer == null) {
+            return IpAddress.ofV4(0); // not a socket address (mock requests...): one shared bucket
+        }
+        if (!trustedProxies.contains(peer)) {
+            return peer;
+        }
+        String xf = request.getHeader("X-Forwarded-For");
+        if (xf != null && !xf.isBlank()) {
+            IpAddress client = peer;
+            int end = xf.length();
+            while (end > 0) {
+                int comma = xf.lastIndexOf(',', end - 1);
+                IpAddress hop = IpAddress.parse(xf, comma + 1, end);
+                if (hop == null) {
+                    break; // garbage: stop at the last address we could trust
+                }
+                client = hop;
+                if (!trustedProxies.contains(hop)) {
+                    break;
+                }
+                end = comma < 0 ? 0 : comma;
+            }
+            return client;
+        }
+        IpAddress real = IpAddress.parse(request.getHeader("X-Real-IP"));
+        return real != null ? real : peer;
+    }
+
+    /** Key the rate limits count against: the client's /ipv4-prefix or /ipv6-prefix network. */
+    public IpAddress rateKey(IpAddress ip) {
+        return ip.mask(ip.isV4() ? 96 + ipv4Prefix : ipv6Prefix);
+    }
+
+    public boolean isAllowlisted(IpAddress ip) {
+        return !allowlist.isEmpty() && allowlist.contains(ip);
+    }
+
+    public boolean isDenylisted(IpAddress ip) {
+        return !denylist.isEmpty() && denylist.contains(ip);
+    }
+}
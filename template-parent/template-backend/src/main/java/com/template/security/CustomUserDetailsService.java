@@ -1,28 +1,27 @@
 package com.template.security;
 
-import com.template.repository.UserRepository;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
-    private final UserRepository repo;
+    private final AuthPrincipalCache principals;
 
-    public CustomUserDetailsService(UserRepository repo) {
-        this.repo = repo;
+    public CustomUserDetailsService(AuthPrincipalCache principals) {
+        this.principals = principals;
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
 
-        var user = repo.findByEmail(email)
+        var user = principals.get(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
         return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword())
-                .roles(user.getRoles().toArray(String[]::new)) 
+                .username(user.email())
+                .password(user.password())
+                .authorities(RoleAuthorities.of(user.roleMask()))
                 .build();
     }
 }
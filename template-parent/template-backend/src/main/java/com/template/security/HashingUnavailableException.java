@@ -0,0 +1,23 @@
+package com.template.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+//503 + Retry-After returned when the password hashing pool sheds load (see BulkheadPasswordEncoder).
+public class HashingUnavailableException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public HashingUnavailableException(long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent authentication requests, retry later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -1,7 +1,8 @@
 package com.template.security;
 
-import com.template.repository.UserRepository;
-import com.template.security.jwt.JwtService;
+import com.template.security.jwt.TokenDenylist;
+import com.template.security.jwt.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
@@ -10,21 +11,34 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.util.List;
 
 public class JwtCookieAuthFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtCookieAuthFilter.class);
 
-    private final JwtService jwt;
-    private final UserRepository userRepo;
+    private final VerifiedTokenCache tokens;
+    private final TokenDenylist denylist;
+    private final AuthPrincipalCache principals;
+    private final SecurityVersionService securityVersions;
+    // true: authorities come from the "roles" claim, no principal lookup per request
+    private final boolean claimsOnly;
 
-    public JwtCookieAuthFilter(JwtService jwt, UserRepository userRepo) {
-        this.jwt = jwt;
-        this.userRepo = userRepo;
+    public JwtCookieAuthFilter(VerifiedTokenCache tokens,
+                               TokenDenylist denylist,
+                               AuthPrincipalCache principals,
+                               SecurityVersionService securityVersions,
+                               boolean claimsOnly) {
+        this.tokens = tokens;
+        this.denylist = denylist;
+        this.principals = principals;
+        this.securityVersions = securityVersions;
+        this.claimsOnly = claimsOnly;
     }
 
     @Override
@@ -37,20 +51,17 @@ public class JwtCookieAuthFilter extends OncePerRequestFilter {
 
         if (StringUtils.hasText(token) && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                var jws = jwt.parse(token);
+                var claims = tokens.verify(token);
 
-                String email = jws.getBody().getSubject();
-                if (email != null) {
-                    var user = userRepo.findByEmail(email).orElse(null);
-                    if (user != null) {
-                        var authorities = user.getRoles().stream()
-                                .map(r -> "ROLE_" + r)
-                                .map(org.springframework.security.core.authority.SimpleGrantedAuthority::new)
-                                .toList();
-                        var auth = new UsernamePasswordAuthenticationToken(email, null, authorities);
-                        SecurityContextHolder.getContext().setAuthentication(auth);
+                String email = claims.getSubject();
+                if (denylist.isRevoked(claims.getId(), claims.getExpiration())) {
+                    // revoked by /auth/logout
+                    logger.debug("Revoked JWT for: {}", email);
+                } else if (email != null) {
+                    if (claimsOnly) {
+                        authenticateFromClaims(email, claims);
                     } else {
-                        logger.debug("No user found for email in token: {}", email);
+                        authenticateFromDatabase(email, claims);
                     }
                 }
             } catch (ExpiredJwtException e) {
@@ -67,6 +78,32 @@ public class JwtCookieAuthFilter extends OncePerRequestFilter {
         chain.doFilter(request, response);
     }
 
+    private void authenticateFromClaims(String email, Claims claims) {
+        if (!securityVersions.isCurrent(email, claims.get(SecurityVersionService.CLAIM))) {
+            logger.debug("Stale security version in token for: {}", email);
+            return;
+        }
+        setAuthentication(email, RoleAuthorities.fromClaim(claims.get("roles")));
+    }
+
+    private void authenticateFromDatabase(String email, Claims claims) {
+        var user = principals.get(email).orElse(null);
+        if (user == null) {
+            logger.debug("No user found for email in token: {}", email);
+            return;
+        }
+        if (user.securityVersion() != SecurityVersionService.versionOf(claims.get(SecurityVersionService.CLAIM))) {
+            logger.debug("Stale security version in token for: {}", email);
+            return;
+        }
+        setAuthentication(email, RoleAuthorities.of(user.roleMask()));
+    }
+
+    private void setAuthentication(String email, List<GrantedAuthority> authorities) {
+        var auth = new UsernamePasswordAuthenticationToken(email, null, authorities);
+        SecurityContextHolder.getContext().setAuthentication(auth);
+    }
+
     private String resolveTokenFromCookies(HttpServletRequest request, String name) {
         var cookies = request.getCookies();
         if (cookies == null) return null;
@@ -0,0 +1,59 @@
+package com.template.security;
+
+import com.template.entity.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+//Interned "ROLE_x" authorities: one immutable list per role mask, built at class load and shared by every request.
+public final class RoleAuthorities {
+
+    private static final Role[] ROLES = Role.values();
+    private static final List<List<GrantedAuthority>> BY_MASK;
+
+    static {
+        Role[] roles = ROLES;
+        GrantedAuthority[] single = new GrantedAuthority[roles.length];
+        for (Role r : roles) {
+            single[r.ordinal()] = new SimpleGrantedAuthority("ROLE_" + r.name());
+        }
+        List<List<GrantedAuthority>> byMask = new ArrayList<>((int) Role.allMask() + 1);
+        for (long mask = 0; mask <= Role.allMask(); mask++) {
+            List<GrantedAuthority> list = new ArrayList<>();
+            for (Role r : roles) {
+                if ((mask & r.bit()) != 0) {
+                    list.add(single[r.ordinal()]);
+                }
+            }
+            byMask.add(List.copyOf(list));
+        }
+        BY_MASK = List.copyOf(byMask);
+    }
+
+    private RoleAuthorities() {
+    }
+
+    public static List<GrantedAuthority> of(long roleMask) {
+        return BY_MASK.get((int) (roleMask & Role.allMask()));
+    }
+
+    /** Authorities of a "roles" token claim; names no longer defined are dropped. */
+    public static List<GrantedAuthority> fromClaim(Object claim) {
+        if (!(claim instanceof Collection<?> names)) {
+            return List.of();
+        }
+        long mask = 0;
+        for (Object name : names) {
+            for (Role r : ROLES) {
+                if (r.name().equals(name)) {
+                    mask |= r.bit();
+                    break;
+                }
+            }
+        }
+        return of(mask);
+    }
+}
@@ -0,0 +1,223 @@
+package com.template.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Shared source of random secrets (reset tokens, refresh tokens, ids).
+ * Callers are spread over {@code stripes} DRBG instances (seeded once, at startup) by thread id, so they neither
+ * contend on one lock nor pay for a new {@code SecureRandom} and its seeding per call. Each stripe serves bytes
+ * from a pre-generated buffer and keeps a spare one that a background thread refills; a caller only generates
+ * inline when both are used up. Tokens are Base64url-encoded into the stripe's scratch buffers, the String is
+ * the only allocation. Consumed buffer bytes are zeroed.
+ * Metrics: {@code security.random.bytes}, {@code security.random.refills{mode=background|inline}},
+ * {@code security.random.blocked} (time callers spent generating inline).
+ */
+@Component
+public class SecureTokenGenerator implements DisposableBean {
+
+    private static final byte[] BASE64URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final class Stripe {
+        final SecureRandom drbg;
+        final AtomicReference<byte[]> spare = new AtomicReference<>();
+        // guarded by this
+        byte[] buffer;
+        int pos;
+        byte[] raw = new byte[64];
+        byte[] encoded = new byte[encodedLength(64)];
+
+        Stripe(int index) {
+            this.drbg = newDrbg(index);
+            this.buffer = generate();
+            this.spare.set(generate());
+        }
+
+        byte[] generate() {
+            byte[] b = new byte[bufferBytes];
+            drbg.nextBytes(b);
+            return b;
+        }
+
+        // caller holds the lock
+        void take(byte[] dst, int off, int len) {
+            while (len > 0) {
+                if (pos == buffer.length) {
+                    swap();
+                }
+                int n = Math.min(len, buffer.length - pos);
+                System.arraycopy(buffer, pos, dst, off, n);
+                Arrays.fill(buffer, pos, pos + n, (byte) 0);
+                pos += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void swap() {
+            byte[] next = spare.getAndSet(null);
+            if (next == null) {
+                long start = System.nanoTime();
+                next = generate();
+                blocked.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                inlineRefills.increment();
+            }
+            buffer = next;
+            pos = 0;
+            refillNeeded.release();
+        }
+    }
+
+    private final int bufferBytes;
+    private final Stripe[] stripes;
+    private final int mask;
+    private final Semaphore refillNeeded = new Semaphore(0);
+    private final Thread refiller;
+    private volatile boolean running = true;
+
+    private final Counter bytes;
+    private final Counter backgroundRefills;
+    private final Counter inlineRefills;
+    private final Timer blocked;
+
+    public SecureTokenGenerator(MeterRegistry meterRegistry,
+                                @Value("${app.random.stripes:0}") int stripes,
+                                @Value("${app.random.buffer-bytes:4096}") int bufferBytes) {
+        this.bufferBytes = Math.max(256, bufferBytes);
+        int wanted = stripes > 0 ? stripes : 2 * Runtime.getRuntime().availableProcessors();
+        int size = Integer.highestOneBit(Math.max(1, wanted - 1) << 1);
+        this.mask = size - 1;
+
+        this.bytes = Counter.builder("security.random.bytes")
+                .description("Random bytes handed out")
+                .register(meterRegistry);
+        this.backgroundRefills = Counter.builder("security.random.refills")
+                .tag("mode", "background")
+                .description("Random buffers generated")
+                .register(meterRegistry);
+        this.inlineRefills = Counter.builder("security.random.refills")
+                .tag("mode", "inline")
+                .description("Random buffers generated")
+                .register(meterRegistry);
+        this.blocked = Timer.builder("security.random.blocked")
+                .description("Time callers waited for random bytes to be generated")
+                .register(meterRegistry);
+
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe(i);
+        }
+        this.refiller = Thread.ofPlatform().daemon().name("secure-token-refill").start(this::refillLoop);
+    }
+
+    private static SecureRandom newDrbg(int index) {
+        byte[] personalization = ByteBuffer.allocate(12).putInt(index).putLong(System.nanoTime()).array();
+        try {
+            return SecureRandom.getInstance("DRBG",
+                    DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, personalization));
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    private void refillLoop() {
+        try {
+            while (running) {
+                refillNeeded.acquire();
+                refillNeeded.drainPermits();
+                for (Stripe s : stripes) {
+                    if (s.spare.get() == null) {
+                        // generated outside the stripe lock: callers keep being served from the current buffer
+                        s.spare.compareAndSet(null, s.generate());
+                        backgroundRefills.increment();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Stripe stripe() {
+        return stripes[(int) Thread.currentThread().threadId() & mask];
+    }
+
+    public void nextBytes(byte[] dst) {
+        Stripe s = stripe();
+        synchronized (s) {
+            s.take(dst, 0, dst.length);
+        }
+        bytes.increment(dst.length);
+    }
+
+    public byte[] nextBytes(int numBytes) {
+        byte[] out = new byte[numBytes];
+        nextBytes(out);
+        return out;
+    }
+
+    /** {@code numBytes} random bytes as unpadded Base64url (4/3 as many ASCII chars). */
+    public String nextToken(int numBytes) {
+        Stripe s = stripe();
+        String token;
+        synchronized (s) {
+            if (s.raw.length < numBytes) {
+                s.raw = new byte[numBytes];
+                s.encoded = new byte[encodedLength(numBytes)];
+            }
+            s.take(s.raw, 0, numBytes);
+            int len = base64url(s.raw, numBytes, s.encoded);
+            Arrays.fill(s.raw, 0, numBytes, (byte) 0);
+            token = new String(s.encoded, 0, len, StandardCharsets.ISO_8859_1);
+        }
+        bytes.increment(numBytes);
+        return token;
+    }
+
+    static int encodedLength(int numBytes) {
+        return (numBytes * 4 + 2) / 3;
+    }
+
+    // RFC 4648 section 5 without padding, into dst (java.util.Base64 can only encode whole arrays)
+    static int base64url(byte[] src, int len, byte[] dst) {
+        int d = 0;
+        int i = 0;
+        for (; i + 3 <= len; i += 3) {
+            int v = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            dst[d++] = BASE64URL[v >>> 18];
+            dst[d++] = BASE64URL[(v >>> 12) & 63];
+            dst[d++] = BASE64URL[(v >>> 6) & 63];
+            dst[d++] = BASE64URL[v & 63];
+        }
+        if (i < len) {
+            int v = (src[i] & 0xff) << 16 | (i + 1 < len ? (src[i + 1] & 0xff) << 8 : 0);
+            dst[d++] = BASE64URL[v >>> 18];
+            dst[d++] = BASE64URL[(v >>> 12) & 63];
+            if (i + 1 < len) {
+                dst[d++] = BASE64URL[(v >>> 6) & 63];
+            }
+        }
+        return d;
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        refiller.interrupt();
+    }
+}
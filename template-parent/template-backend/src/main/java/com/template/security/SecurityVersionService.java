@@ -0,0 +1,43 @@
+package com.template.security;
+
+import com.template.repository.UserRepository.AuthPrincipal;
+import org.springframework.stereotype.Service;
+
+//Per-user security versions (users.security_version), read through AuthPrincipalCache.
+//Tokens carry the version they were issued with ("sv" claim); a bump makes every older token stale.
+//The instance that bumps evicts its entry after commit; other replicas reload theirs once the principal
+//cache TTL (app.auth.principal-cache.ttl-seconds) expires, so old tokens are accepted there at most that long.
+@Service
+public class SecurityVersionService {
+
+    public static final String CLAIM = "sv";
+
+    private final AuthPrincipalCache principals;
+
+    public SecurityVersionService(AuthPrincipalCache principals) {
+        this.principals = principals;
+    }
+
+    /** Current version for {@code email}, or -1 when the user does not exist. */
+    public int current(String email) {
+        return principals.get(email).map(AuthPrincipal::securityVersion).orElse(-1);
+    }
+
+    /** True when the version carried by a token (missing claim = 0) matches the user's current one. */
+    public boolean isCurrent(String email, Object tokenVersion) {
+        int current = current(email);
+        return current >= 0 && current == versionOf(tokenVersion);
+    }
+
+    /**
+     * Forgets the cached version of {@code email} after its security version was bumped (password reset,
+     * role change), so the next check reloads it. Inside a transaction the eviction happens after commit.
+     */
+    public void evict(String email) {
+        principals.evict(email);
+    }
+
+    public static int versionOf(Object claim) {
+        return claim instanceof Number n ? n.intValue() : 0;
+    }
+}
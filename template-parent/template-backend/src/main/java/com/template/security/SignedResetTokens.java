@@ -0,0 +1,97 @@
+package com.template.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Self-contained password reset tokens (app.password-reset.mode=signed): nothing is stored.
+ * The token is base64url(version | user id | security version | expiry | HMAC-SHA256 of the rest).
+ * It is bound to the user's security version, which every password reset bumps, so the reset that
+ * consumes it (a conditional update on that version) makes it, and every other link sent before, unusable.
+ */
+@Component
+public class SignedResetTokens {
+
+    private static final Logger log = LoggerFactory.getLogger(SignedResetTokens.class);
+
+    public record Claims(long userId, int securityVersion, Instant expiresAt) {}
+
+    private static final byte VERSION = 1;
+    private static final int PAYLOAD = 1 + 8 + 4 + 8;
+    private static final int MAC = 32;
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    public SignedResetTokens(@Value("${app.password-reset.signing-secret:}") String secret) {
+        this.key = new SecretKeySpec(keyBytes(secret), ALGORITHM);
+    }
+
+    private static byte[] keyBytes(String secret) {
+        if (secret == null || secret.isBlank()) {
+            // Fine for a single dev instance only: links die with the process and other replicas reject them
+            log.warn("app.password-reset.signing-secret missed: generating an ephemeral reset token key");
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] raw = secret.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < 32) {
+            throw new IllegalArgumentException("app.password-reset.signing-secret should do minimum 32 bytes (256 bits)");
+        }
+        return raw;
+    }
+
+    public String issue(long userId, int securityVersion, Instant expiresAt) {
+        ByteBuffer buf = ByteBuffer.allocate(PAYLOAD + MAC);
+        buf.put(VERSION).putLong(userId).putInt(securityVersion).putLong(expiresAt.getEpochSecond());
+        buf.put(mac(buf.array(), PAYLOAD));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+    }
+
+    /** Claims of an authentic, unexpired token; empty otherwise. Pure CPU, no storage involved. */
+    public Optional<Claims> verify(String token, Instant now) {
+        byte[] raw;
+        try {
+            raw = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (raw.length != PAYLOAD + MAC || raw[0] != VERSION) {
+            return Optional.empty();
+        }
+        byte[] expected = mac(raw, PAYLOAD);
+        byte[] actual = new byte[MAC];
+        System.arraycopy(raw, PAYLOAD, actual, 0, MAC);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return Optional.empty();
+        }
+        ByteBuffer buf = ByteBuffer.wrap(raw, 1, PAYLOAD - 1);
+        Claims claims = new Claims(buf.getLong(), buf.getInt(), Instant.ofEpochSecond(buf.getLong()));
+        return now.isBefore(claims.expiresAt()) ? Optional.of(claims) : Optional.empty();
+    }
+
+    private byte[] mac(byte[] data, int len) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(data, 0, len);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+}
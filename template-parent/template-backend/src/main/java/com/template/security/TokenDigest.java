@@ -0,0 +1,22 @@
+package com.template.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+//SHA-256 of bearer secrets (reset tokens) so only the digest is stored: a leaked table gives no usable token.
+//Tokens are 256+ random bits, so a plain fast hash is enough (no salt/stretching needed).
+public final class TokenDigest {
+
+    public static final int LENGTH = 32;
+
+    private TokenDigest() {}
+
+    public static byte[] sha256(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.template.security;
+
+import com.template.service.UserRoleService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Role administration: {@code POST /actuator/userroles/{email}} {"roles": "USER,ADMIN"} (ADMIN only, see SecurityConfig).
+ * The user's current tokens stop working; they log in again with the new roles.
+ */
+@Component
+@Endpoint(id = "userroles")
+public class UserRolesEndpoint {
+
+    private final UserRoleService roles;
+
+    public UserRolesEndpoint(UserRoleService roles) {
+        this.roles = roles;
+    }
+
+    @WriteOperation
+    public Map<String, Object> change(@Selector String email, String roles) {
+        Set<String> names = Arrays.stream(roles.split(","))
+                .map(String::trim)
+                .filter(r -> !r.isEmpty())
+                .collect(Collectors.toSet());
+        return Map.of("email", email, "roles", names, "changed", this.roles.changeRoles(email, names));
+    }
+}
@@ -0,0 +1,147 @@
+package com.template.security.ip;
+
+/**
+ * Compressed binary radix (PATRICIA) trie of CIDR prefixes over the 128-bit {@link IpAddress} space.
+ * {@link #longestMatch} walks at most one node per branching bit of the matched prefix, comparing whole
+ * 64-bit words, so a lookup is O(prefix length) with no allocation.
+ * Built at startup and only read afterwards (not thread-safe for concurrent {@link #put}).
+ */
+public final class CidrTrie<V> {
+
+    private static final class Node<V> {
+        final long hi, lo;   // prefix bits, masked
+        final int length;    // prefix length, 0-128
+        V value;             // null: internal branch node
+        Node<V> zero, one;
+
+        Node(long hi, long lo, int length, V value) {
+            this.hi = hi;
+            this.lo = lo;
+            this.length = length;
+            this.value = value;
+        }
+    }
+
+    private Node<V> root;
+    private int size;
+
+    /** Parses "a.b.c.d/n", "v6/n" or a single address (/32, /128). */
+    public void put(String cidr, V value) {
+        String s = cidr.trim();
+        int slash = s.indexOf('/');
+        IpAddress address = IpAddress.parse(s, 0, slash < 0 ? s.length() : slash);
+        if (address == null) {
+            throw new IllegalArgumentException("Invalid CIDR: " + cidr);
+        }
+        int length = 128;
+        if (slash >= 0) {
+            try {
+                length = Integer.parseInt(s.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid CIDR: " + cidr, e);
+            }
+            if (address.isV4()) length += 96;
+            if (length < (address.isV4() ? 96 : 0) || length > 128) {
+                throw new IllegalArgumentException("Invalid CIDR prefix length: " + cidr);
+            }
+        }
+        put(address, length, value);
+    }
+
+    public void put(IpAddress address, int length, V value) {
+        IpAddress key = address.mask(length);
+        Node<V> leaf = new Node<>(key.hi(), key.lo(), length, value);
+        if (root == null) {
+            root = leaf;
+            size++;
+            return;
+        }
+        Node<V> parent = null;
+        Node<V> node = root;
+        for (;;) {
+            int common = commonPrefix(key.hi(), key.lo(), node.hi, node.lo, Math.min(length, node.length));
+            if (common < node.length) {
+                // key diverges inside node's prefix (or is shorter): insert above node
+                Node<V> top;
+                if (common == length) {
+                    top = leaf;
+                } else {
+                    IpAddress branch = key.mask(common);
+                    top = new Node<>(branch.hi(), branch.lo(), common, null);
+                    attach(top, leaf);
+                }
+                attach(top, node);
+                replace(parent, node, top);
+                size++;
+                return;
+            }
+            if (length == node.length) {
+                if (node.value == null) size++;
+                node.value = value;
+                return;
+            }
+            Node<V> child = bit(key.hi(), key.lo(), node.length) == 0 ? node.zero : node.one;
+            if (child == null) {
+                attach(node, leaf);
+                size++;
+                return;
+            }
+            parent = node;
+            node = child;
+        }
+    }
+
+    /** Value of the longest prefix containing {@code address}, or {@code null}. */
+    public V longestMatch(IpAddress address) {
+        long hi = address.hi(), lo = address.lo();
+        V best = null;
+        Node<V> node = root;
+        while (node != null) {
+            if (commonPrefix(hi, lo, node.hi, node.lo, node.length) < node.length) {
+                break;
+            }
+            if (node.value != null) {
+                best = node.value;
+            }
+            if (node.length == 128) {
+                break;
+            }
+            node = bit(hi, lo, node.length) == 0 ? node.zero : node.one;
+        }
+        return best;
+    }
+
+    public boolean contains(IpAddress address) {
+        return longestMatch(address) != null;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void attach(Node<V> parent, Node<V> child) {
+        if (bit(child.hi, child.lo, parent.length) == 0) parent.zero = child;
+        else parent.one = child;
+    }
+
+    private void replace(Node<V> parent, Node<V> old, Node<V> replacement) {
+        if (parent == null) root = replacement;
+        else if (parent.zero == old) parent.zero = replacement;
+        else parent.one = replacement;
+    }
+
+    private static int bit(long hi, long lo, int i) {
+        return (int) (i < 64 ? hi >>> (63 - i) : lo >>> (127 - i)) & 1;
+    }
+
+    // Number of leading bits shared by a and b, capped at max
+    private static int commonPrefix(long aHi, long aLo, long bHi, long bLo, int max) {
+        long x = aHi ^ bHi;
+        int common = x != 0 ? Long.numberOfLeadingZeros(x) : 64 + Long.numberOfLeadingZeros(aLo ^ bLo);
+        return Math.min(common, max);
+    }
+}
@@ -0,0 +1,188 @@
+package com.template.security.ip;
+
+/**
+ * IPv4 or IPv6 address as 128 bits ({@code hi}, {@code lo}). IPv4 is stored IPv4-mapped
+ * ({@code ::ffff:a.b.c.d}), so both families share one key space: an IPv4 /24 is a /120 here.
+ * Parsing works on a range of a {@link CharSequence} (e.g. one entry of X-Forwarded-For) without
+ * allocating strings, and answers {@code null} instead of throwing on bad input.
+ */
+public record IpAddress(long hi, long lo) {
+
+    private static final long V4_MAPPED = 0xffffL << 32;
+
+    public static IpAddress ofV4(int address) {
+        return new IpAddress(0, V4_MAPPED | (address & 0xffffffffL));
+    }
+
+    public static IpAddress parse(CharSequence s) {
+        return s == null ? null : parse(s, 0, s.length());
+    }
+
+    /** Parses {@code s[from, to)}: IPv4, IPv6 (zone id, brackets and IPv4 tail accepted), optional port. */
+    public static IpAddress parse(CharSequence s, int from, int to) {
+        while (from < to && Character.isWhitespace(s.charAt(from))) from++;
+        while (to > from && Character.isWhitespace(s.charAt(to - 1))) to--;
+        if (from >= to) {
+            return null;
+        }
+        if (s.charAt(from) == '[') { // [v6] or [v6]:port
+            int close = indexOf(s, ']', from, to);
+            if (close < 0) return null;
+            return parseV6(s, from + 1, close);
+        }
+        int colon = indexOf(s, ':', from, to);
+        if (colon < 0) {
+            long v4 = parseV4(s, from, to);
+            return v4 < 0 ? null : ofV4((int) v4);
+        }
+        if (indexOf(s, ':', colon + 1, to) < 0 && indexOf(s, '.', from, colon) >= 0) { // a.b.c.d:port
+            long v4 = parseV4(s, from, colon);
+            return v4 < 0 ? null : ofV4((int) v4);
+        }
+        return parseV6(s, from, to);
+    }
+
+    public boolean isV4() {
+        return hi == 0 && (lo & 0xffffffff00000000L) == V4_MAPPED;
+    }
+
+    /** Network address of the {@code prefixLength}-bit prefix (0-128, IPv4 prefixes + 96). */
+    public IpAddress mask(int prefixLength) {
+        if (prefixLength >= 128) return this;
+        if (prefixLength <= 0) return new IpAddress(0, 0);
+        if (prefixLength <= 64) {
+            return new IpAddress(hi & (-1L << (64 - prefixLength)), 0);
+        }
+        return new IpAddress(hi, lo & (-1L << (128 - prefixLength)));
+    }
+
+    /** Bit {@code i} (0 = most significant). */
+    public int bit(int i) {
+        return (int) (i < 64 ? hi >>> (63 - i) : lo >>> (127 - i)) & 1;
+    }
+
+    @Override
+    public String toString() {
+        if (isV4()) {
+            int v = (int) lo;
+            return (v >>> 24) + "." + ((v >>> 16) & 0xff) + "." + ((v >>> 8) & 0xff) + "." + (v & 0xff);
+        }
+        int[] g = new int[8];
+        for (int i = 0; i < 4; i++) {
+            g[i] = (int) (hi >>> (48 - 16 * i)) & 0xffff;
+            g[i + 4] = (int) (lo >>> (48 - 16 * i)) & 0xffff;
+        }
+        // RFC 5952: compress the longest run (>= 2) of zero groups
+        int bestStart = -1, bestLen = 1;
+        for (int i = 0; i < 8; ) {
+            if (g[i] != 0) { i++; continue; }
+            int j = i;
+            while (j < 8 && g[j] == 0) j++;
+            if (j - i > bestLen) { bestStart = i; bestLen = j - i; }
+            i = j;
+        }
+        StringBuilder sb = new StringBuilder(39);
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                sb.append("::");
+                i += bestLen - 1;
+                continue;
+            }
+            if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ':') sb.append(':');
+            sb.append(Integer.toHexString(g[i]));
+        }
+        return sb.toString();
+    }
+
+    // -1 when invalid
+    private static long parseV4(CharSequence s, int from, int to) {
+        long result = 0;
+        int parts = 0;
+        int i = from;
+        while (parts < 4) {
+            int value = 0, digits = 0;
+            while (i < to && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+                value = value * 10 + (s.charAt(i) - '0');
+                if (++digits > 3 || value > 255) return -1;
+                i++;
+            }
+            if (digits == 0) return -1;
+            result = (result << 8) | value;
+            parts++;
+            if (parts < 4) {
+                if (i >= to || s.charAt(i) != '.') return -1;
+                i++;
+            }
+        }
+        return i == to ? result : -1;
+    }
+
+    private static IpAddress parseV6(CharSequence s, int from, int to) {
+        int zone = indexOf(s, '%', from, to);
+        if (zone >= 0) to = zone;
+        if (to - from < 2) return null;
+
+        int[] groups = new int[8];
+        int n = 0;
+        int gap = -1; // index in groups where "::" stands
+        int i = from;
+        if (s.charAt(i) == ':') {
+            if (s.charAt(i + 1) != ':') return null;
+            gap = 0;
+            i += 2;
+        }
+        while (i < to) {
+            if (n == 8) return null;
+            int j = i;
+            boolean dotted = false;
+            while (j < to && s.charAt(j) != ':') {
+                if (s.charAt(j) == '.') dotted = true;
+                j++;
+            }
+            if (dotted) { // trailing IPv4, e.g. ::ffff:192.0.2.1
+                if (j != to || n > 6) return null;
+                long v4 = parseV4(s, i, to);
+                if (v4 < 0) return null;
+                groups[n++] = (int) (v4 >>> 16);
+                groups[n++] = (int) (v4 & 0xffff);
+                break;
+            }
+            if (j == i || j - i > 4) return null;
+            int value = 0;
+            for (int k = i; k < j; k++) {
+                int d = Character.digit(s.charAt(k), 16);
+                if (d < 0) return null;
+                value = (value << 4) | d;
+            }
+            groups[n++] = value;
+            if (j == to) break;
+            if (j + 1 < to && s.charAt(j + 1) == ':') {
+                if (gap >= 0) return null;
+                gap = n;
+                i = j + 2;
+            } else {
+                i = j + 1;
+                if (i == to) return null; // trailing single ':'
+            }
+        }
+        if (gap < 0 ? n != 8 : n > 7) {
+            return null;
+        }
+        long hi = 0, lo = 0;
+        int shift = gap < 0 ? 0 : 8 - n; // zero groups inserted at the gap
+        for (int k = 0; k < 8; k++) {
+            int src = gap < 0 || k < gap ? k : k - shift;
+            int value = gap >= 0 && k >= gap && k < gap + shift ? 0 : groups[src];
+            if (k < 4) hi = (hi << 16) | value;
+            else lo = (lo << 16) | value;
+        }
+        return new IpAddress(hi, lo);
+    }
+
+    private static int indexOf(CharSequence s, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == c) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,86 @@
+package com.template.security.jwt;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.SignatureException;
+
+import java.security.Key;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Set of keys known by {@link JwtService}, indexed by {@code kid}.
+ * Exactly one entry signs new tokens; every entry verifies. Tokens issued without a {@code kid}
+ * header (before key ids existed) are verified with the legacy key id.
+ */
+public final class JwtKeyring {
+
+    /** {@code signingKey} is null for verification-only entries (e.g. another issuer's public key). */
+    public record Entry(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final String legacyKid;
+    private volatile Entry signing;
+
+    public JwtKeyring(Entry initialSigning) {
+        if (initialSigning.signingKey() == null) {
+            throw new IllegalArgumentException("Initial JWT key has no signing part: " + initialSigning.kid());
+        }
+        this.entries.put(initialSigning.kid(), initialSigning);
+        this.signing = initialSigning;
+        this.legacyKid = initialSigning.kid();
+    }
+
+    public Entry signing() {
+        return signing;
+    }
+
+    /** Verification key for {@code kid}; throws a {@link SignatureException} for unknown ids. */
+    public Key verificationKey(String kid) {
+        Entry e = entries.get(kid != null ? kid : legacyKid);
+        if (e == null) {
+            throw new SignatureException("Unknown JWT key id: " + kid);
+        }
+        return e.verificationKey();
+    }
+
+    /**
+     * Adds (or replaces) a key; it verifies immediately but only signs once promoted.
+     * @return true when another key with the same kid was replaced
+     */
+    public boolean add(Entry entry) {
+        Entry current = signing;
+        if (current.kid().equals(entry.kid())) {
+            throw new IllegalArgumentException("Cannot replace the active signing key: " + entry.kid());
+        }
+        return entries.put(entry.kid(), entry) != null;
+    }
+
+    public void promote(String kid) {
+        Entry e = entries.get(kid);
+        if (e == null) {
+            throw new IllegalArgumentException("Unknown JWT key id: " + kid);
+        }
+        if (e.signingKey() == null) {
+            throw new IllegalArgumentException("JWT key is verification-only: " + kid);
+        }
+        signing = e;
+    }
+
+    /** Withdraws a verification key; tokens signed with it stop being accepted. */
+    public boolean remove(String kid) {
+        if (signing.kid().equals(kid)) {
+            throw new IllegalArgumentException("Cannot remove the active signing key: " + kid);
+        }
+        return entries.remove(kid) != null;
+    }
+
+    public Set<String> kids() {
+        return new TreeSet<>(entries.keySet());
+    }
+
+    public Iterable<Entry> entries() {
+        return entries.values();
+    }
+}
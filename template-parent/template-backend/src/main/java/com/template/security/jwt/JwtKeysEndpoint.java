@@ -0,0 +1,66 @@
+package com.template.security.jwt;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Runtime key rotation: {@code /actuator/jwtkeys} (ADMIN only, see SecurityConfig).
+ * <ul>
+ *   <li>GET: active signing kid and every verification kid</li>
+ *   <li>POST /{kid} {"secret": "..."}: add (or replace) a verification key</li>
+ *   <li>POST /{kid}/promote: make it the signing key</li>
+ *   <li>DELETE /{kid}: withdraw a verification key</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "jwtkeys")
+public class JwtKeysEndpoint {
+
+    private final JwtService jwt;
+    private final VerifiedTokenCache tokens;
+
+    public JwtKeysEndpoint(JwtService jwt, VerifiedTokenCache tokens) {
+        this.jwt = jwt;
+        this.tokens = tokens;
+    }
+
+    @ReadOperation
+    public Map<String, Object> keys() {
+        return Map.of("signing", jwt.signingKeyId(), "kids", jwt.keyIds());
+    }
+
+    @WriteOperation
+    public Map<String, Object> add(@Selector String kid, String secret) {
+        if (jwt.addKey(kid, secret)) {
+            // cached entries may have been verified with the replaced material
+            tokens.invalidateAll();
+        }
+        return keys();
+    }
+
+    // separate path rather than an optional body flag: optional operation parameters need @Nullable
+    @WriteOperation
+    public Map<String, Object> promote(@Selector String kid, @Selector String action) {
+        if (!"promote".equals(action)) {
+            throw new InvalidEndpointRequestException("Unknown action '" + action + "'", "Unknown action");
+        }
+        jwt.promoteKey(kid);
+        return keys();
+    }
+
+    @DeleteOperation
+    public Map<String, Object> remove(@Selector String kid) {
+        if (jwt.removeKey(kid)) {
+            // cached entries may have been verified with the withdrawn key
+            tokens.invalidateAll();
+        }
+        return keys();
+    }
+}
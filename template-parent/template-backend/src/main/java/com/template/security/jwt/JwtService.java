@@ -3,39 +3,161 @@ package com.template.security.jwt;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class JwtService {
 
-    private final Key key;
+    private static final Logger log = LoggerFactory.getLogger(JwtService.class);
+
+    private final SignatureAlgorithm algorithm;
+    private final JwtKeyring keyring;
     private final String issuer;
     private final String audience;
     private final long clockSkewSeconds;
+    // JwtParser is immutable and thread-safe: built once, keys are resolved per token from the keyring
+    private final JwtParser parser;
+    // Public JWK set, rebuilt only when the keyring changes
+    private volatile Map<String, Object> jwks;
 
     public JwtService(
-            @Value("${security.jwt.secret}") String secret,
+            @Value("${security.jwt.algorithm:HS256}") String algorithm,
+            @Value("${security.jwt.secret:}") String secret,
+            @Value("${security.jwt.ec-private-key:}") String ecPrivateKey,
+            @Value("${security.jwt.ec-public-key:}") String ecPublicKey,
+            @Value("${security.jwt.kid:default}") String kid,
+            @Value("${security.jwt.verification-keys:}") String verificationKeys,
             @Value("${security.jwt.issuer}") String issuer,
             @Value("${security.jwt.audience:}") String audience,
             @Value("${security.jwt.clock-skew-seconds:30}") long clockSkewSeconds
     ) {
-        this.key = buildKey(secret);
+        this.algorithm = SignatureAlgorithm.forName(algorithm.trim().toUpperCase());
+        if (this.algorithm != SignatureAlgorithm.HS256 && this.algorithm != SignatureAlgorithm.ES256) {
+            throw new IllegalArgumentException("security.jwt.algorithm should be HS256 or ES256");
+        }
+        this.keyring = new JwtKeyring(this.algorithm == SignatureAlgorithm.ES256
+                ? initialEcEntry(kid, ecPrivateKey, ecPublicKey)
+                : hmacEntry(kid, secret));
+        addVerificationKeys(verificationKeys);
         this.issuer = issuer;
         this.audience = (audience != null && !audience.isBlank()) ? audience : null;
         this.clockSkewSeconds = Math.max(0, clockSkewSeconds);
+        this.parser = buildParser();
+        this.jwks = buildJwks();
+    }
+
+    private JwtParser buildParser() {
+        JwtParserBuilder builder = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return keyring.verificationKey(header.getKeyId());
+                    }
+                })
+                .requireIssuer(issuer)
+                .setAllowedClockSkewSeconds(clockSkewSeconds);
+
+        if (audience != null) {
+            builder.requireAudience(audience);
+        }
+        return builder.build();
+    }
+
+    // "kid1:material1,kid2:material2" -> verification keys still in circulation (see keyEntry for the material)
+    private void addVerificationKeys(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return;
+        }
+        for (String item : spec.split(",")) {
+            int sep = item.indexOf(':');
+            if (sep <= 0) {
+                throw new IllegalArgumentException("security.jwt.verification-keys entries must be kid:key");
+            }
+            keyring.add(keyEntry(item.substring(0, sep).trim(), item.substring(sep + 1).trim()));
+        }
     }
 
-    private Key buildKey(String secret) {
+    /**
+     * HS256: the material is the shared secret.
+     * ES256: Base64 X.509 public key (verification only) or "privatePkcs8:publicX509" (can sign).
+     */
+    private JwtKeyring.Entry keyEntry(String kid, String material) {
+        if (algorithm == SignatureAlgorithm.HS256) {
+            return hmacEntry(kid, material);
+        }
+        int sep = material.indexOf(':');
+        return sep < 0
+                ? ecEntry(kid, null, material)
+                : ecEntry(kid, material.substring(0, sep), material.substring(sep + 1));
+    }
+
+    private static JwtKeyring.Entry hmacEntry(String kid, String secret) {
+        requireKid(kid);
+        Key key = buildKey(secret);
+        return new JwtKeyring.Entry(kid, SignatureAlgorithm.HS256, key, key);
+    }
+
+    private static JwtKeyring.Entry initialEcEntry(String kid, String privateKey, String publicKey) {
+        if (privateKey == null || privateKey.isBlank()) {
+            // Fine for a single dev instance only: every restart/replica gets its own key
+            log.warn("security.jwt.ec-private-key missed: generating an ephemeral ES256 key pair");
+            KeyPair pair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+            requireKid(kid);
+            return new JwtKeyring.Entry(kid, SignatureAlgorithm.ES256, pair.getPrivate(), pair.getPublic());
+        }
+        return ecEntry(kid, privateKey, publicKey);
+    }
+
+    private static JwtKeyring.Entry ecEntry(String kid, String privateKeyB64, String publicKeyB64) {
+        requireKid(kid);
+        if (publicKeyB64 == null || publicKeyB64.isBlank()) {
+            throw new IllegalArgumentException("ES256 key '" + kid + "' needs its public key (Base64 X.509)");
+        }
+        try {
+            KeyFactory kf = KeyFactory.getInstance("EC");
+            PublicKey pub = kf.generatePublic(new X509EncodedKeySpec(Decoders.BASE64.decode(publicKeyB64)));
+            PrivateKey priv = privateKeyB64 == null ? null
+                    : kf.generatePrivate(new PKCS8EncodedKeySpec(Decoders.BASE64.decode(privateKeyB64)));
+            return new JwtKeyring.Entry(kid, SignatureAlgorithm.ES256, priv, pub);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid ES256 key material for kid '" + kid + "'", e);
+        }
+    }
+
+    private static void requireKid(String kid) {
+        if (kid == null || kid.isBlank()) {
+            throw new IllegalArgumentException("security.jwt.kid missed");
+        }
+    }
+
+    private static Key buildKey(String secret) {
         if (secret == null || secret.isBlank()) {
             throw new IllegalArgumentException("security.jwt.secret missed");
         }
-        // 1) try Base64 
+        // 1) try Base64
         try {
             byte[] decoded = Decoders.BASE64.decode(secret);
             if (decoded.length >= 32) {
@@ -54,14 +176,17 @@ public class JwtService {
 
     public String generateToken(String subject, long ttlSeconds, Map<String, Object> claims) {
         Instant now = Instant.now();
+        JwtKeyring.Entry signing = keyring.signing();
 
         JwtBuilder builder = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signing.kid())
                 .setClaims(claims != null ? claims : Jwts.claims())
+                .setId(UUID.randomUUID().toString()) // jti, used by TokenDenylist
                 .setSubject(subject)
                 .setIssuer(issuer)
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(now.plusSeconds(ttlSeconds)))
-                .signWith(key, SignatureAlgorithm.HS256);
+                .signWith(signing.signingKey(), signing.algorithm());
 
         if (audience != null) {
             builder.setAudience(audience);
@@ -71,19 +196,75 @@ public class JwtService {
     }
 
     public Jws<Claims> parse(String token) {
-        JwtParserBuilder parser = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .requireIssuer(issuer)
-                .setAllowedClockSkewSeconds(clockSkewSeconds);
+        return parser.parseClaimsJws(token);
+    }
 
-        if (audience != null) {
-            parser.requireAudience(audience);
+    public String getSubject(String token) {
+        return parse(token).getBody().getSubject();
+    }
+
+    /** JWK set of the public verification keys ({"keys": []} in HS256 mode: secrets are never published). */
+    public Map<String, Object> jwks() {
+        return jwks;
+    }
+
+    private Map<String, Object> buildJwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        for (JwtKeyring.Entry e : keyring.entries()) {
+            if (e.verificationKey() instanceof ECPublicKey ec) {
+                Map<String, Object> jwk = new LinkedHashMap<>();
+                jwk.put("kty", "EC");
+                jwk.put("crv", "P-256");
+                jwk.put("use", "sig");
+                jwk.put("alg", e.algorithm().getValue());
+                jwk.put("kid", e.kid());
+                jwk.put("x", coordinate(ec.getW().getAffineX()));
+                jwk.put("y", coordinate(ec.getW().getAffineY()));
+                keys.add(jwk);
+            }
         }
+        return Map.of("keys", List.copyOf(keys));
+    }
 
-        return parser.build().parseClaimsJws(token);
+    // P-256 coordinates are fixed 32-byte big-endian values (BigInteger adds/drops leading zeros)
+    private static String coordinate(BigInteger value) {
+        byte[] raw = value.toByteArray();
+        byte[] out = new byte[32];
+        int len = Math.min(raw.length, 32);
+        System.arraycopy(raw, raw.length - len, out, 32 - len, len);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out);
     }
 
-    public String getSubject(String token) {
-        return parse(token).getBody().getSubject();
+    // --- Key rotation ---
+    // 1) addKey on every node (new key verifies only), 2) promoteKey everywhere,
+    // 3) removeKey the old kid once the longest-lived token signed with it has expired.
+
+    /** @return true when an existing key with this kid was replaced (tokens it verified must be re-checked) */
+    public boolean addKey(String kid, String material) {
+        boolean replaced = keyring.add(keyEntry(kid, material));
+        jwks = buildJwks();
+        return replaced;
+    }
+
+    public void promoteKey(String kid) {
+        keyring.promote(kid);
+    }
+
+    public boolean removeKey(String kid) {
+        boolean removed = keyring.remove(kid);
+        jwks = buildJwks();
+        return removed;
+    }
+
+    public String signingKeyId() {
+        return keyring.signing().kid();
+    }
+
+    public Set<String> keyIds() {
+        return keyring.kids();
+    }
+
+    public SignatureAlgorithm algorithm() {
+        return algorithm;
     }
 }
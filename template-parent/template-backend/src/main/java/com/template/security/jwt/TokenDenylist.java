@@ -0,0 +1,75 @@
+package com.template.security.jwt;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory denylist of revoked token ids ({@code jti}), bucketed by token expiry.
+ * A lookup goes straight to the bucket of the token's {@code exp} (one map get + one set contains),
+ * and whole buckets are dropped once every token in them is expired, so memory is bounded by the
+ * number of revocations within one access-token TTL. The list is per instance.
+ */
+@Component
+public class TokenDenylist {
+
+    private final long bucketMillis;
+    private final long clockSkewMillis;
+    private final ConcurrentSkipListMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+
+    public TokenDenylist(MeterRegistry meterRegistry,
+                         @Value("${security.jwt.denylist.bucket-seconds:60}") long bucketSeconds,
+                         @Value("${security.jwt.clock-skew-seconds:30}") long clockSkewSeconds) {
+        this.bucketMillis = Math.max(1, bucketSeconds) * 1000;
+        this.clockSkewMillis = Math.max(0, clockSkewSeconds) * 1000;
+        Gauge.builder("auth.jwt.denylist.size", this, TokenDenylist::size)
+                .description("Revoked access tokens not yet expired")
+                .register(meterRegistry);
+    }
+
+    public void revoke(String jti, Date expiresAt) {
+        if (jti == null || expiresAt == null) {
+            return;
+        }
+        if (expiresAt.getTime() + clockSkewMillis <= System.currentTimeMillis()) {
+            return; // already rejected by the parser
+        }
+        buckets.computeIfAbsent(bucketOf(expiresAt.getTime()), b -> ConcurrentHashMap.newKeySet()).add(jti);
+    }
+
+    public boolean isRevoked(String jti, Date expiresAt) {
+        if (jti == null || expiresAt == null) {
+            return false;
+        }
+        Set<String> bucket = buckets.get(bucketOf(expiresAt.getTime()));
+        return bucket != null && bucket.contains(jti);
+    }
+
+    /** Drops the buckets whose tokens are all past exp + clock skew. */
+    @Scheduled(fixedDelayString = "${security.jwt.denylist.purge-interval-ms:60000}")
+    public void purge() {
+        long firstLive = bucketOf(System.currentTimeMillis() - clockSkewMillis);
+        ConcurrentNavigableMap<Long, Set<String>> expired = buckets.headMap(firstLive);
+        expired.clear();
+    }
+
+    public int size() {
+        int n = 0;
+        for (Set<String> bucket : buckets.values()) {
+            n += bucket.size();
+        }
+        return n;
+    }
+
+    private long bucketOf(long epochMillis) {
+        return Math.floorDiv(epochMillis, bucketMillis);
+    }
+}
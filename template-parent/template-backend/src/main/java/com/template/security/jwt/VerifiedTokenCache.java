@@ -0,0 +1,109 @@
+package com.template.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of tokens whose signature and claims were already verified by {@link JwtService}.
+ * Entries are keyed by the SHA-256 of the raw token (the token itself is never kept as a key),
+ * live at most until the token's {@code exp} and are evicted by size.
+ * Hit/miss/eviction counters are published under {@code cache.*{cache="jwt.verified-tokens"}}.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final JwtService jwt;
+    private final boolean enabled;
+    private final Cache<TokenKey, Claims> cache;
+
+    public VerifiedTokenCache(JwtService jwt,
+                              MeterRegistry meterRegistry,
+                              @Value("${security.jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${security.jwt.cache.max-size:10000}") long maxSize) {
+        this.jwt = jwt;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxSize))
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+    }
+
+    /**
+     * Returns the verified claims of {@code token}, parsing it only on a cache miss.
+     * Any {@link io.jsonwebtoken.JwtException} thrown by the parser is propagated and nothing is cached.
+     */
+    public Claims verify(String token) {
+        if (!enabled) {
+            return jwt.parse(token).getBody();
+        }
+        TokenKey key = TokenKey.of(token);
+        Claims cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = jwt.parse(token).getBody();
+        if (claims.getExpiration() != null) {
+            cache.put(key, claims);
+        }
+        return claims;
+    }
+
+    /** Drops every cached entry (e.g. after a signing key was withdrawn). */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    // Expire each entry at the token's own exp; tokens without exp are never cached.
+    private static final class UntilTokenExpiry implements Expiry<TokenKey, Claims> {
+
+        @Override
+        public long expireAfterCreate(TokenKey key, Claims claims, long currentTime) {
+            Date exp = claims.getExpiration();
+            long remainingMs = exp.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenKey key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(TokenKey key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    // 256-bit digest held as four longs: cheap equals/hashCode and no retained token string.
+    private record TokenKey(long a, long b, long c, long d) {
+
+        static TokenKey of(String token) {
+            byte[] digest = SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+            ByteBuffer buf = ByteBuffer.wrap(digest);
+            return new TokenKey(buf.getLong(), buf.getLong(), buf.getLong(), buf.getLong());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.template.security.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.template.security.ClientIpResolver;
+import com.template.security.ip.IpAddress;
+import com.template.service.limiter.TokenBucketLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Declarative per-route rate limiting (see {@link RateLimitProperties}), run before authentication,
+ * body validation and password hashing: an abusive client is answered 429 + Retry-After at the cost of
+ * a few CAS operations. Each route keeps its own token buckets per IP and/or per email and its own
+ * counter {@code auth.rate-limit.requests{route, outcome=allowed|rejected_ip|rejected_email|too_large|allowlisted|denied}}.
+ * Routes are matched on the decoded, normalized path (what Spring MVC dispatches on), so {@code /auth/%6Cogin}
+ * or {@code /auth/login/} cannot slip past a route.
+ * IPs are counted per network prefix and checked against the allow/deny lists of {@link ClientIpResolver}.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private record CompiledRoute(String name, String method,
+                                 TokenBucketLimiter byIp, TokenBucketLimiter byEmail,
+                                 Counter allowed, Counter rejectedIp, Counter rejectedEmail, Counter tooLarge,
+                                 Counter allowlisted, Counter denied) {}
+
+    // decoded, without ";jsessionid=..." style segment parameters
+    private static final UrlPathHelper PATHS = new UrlPathHelper();
+
+    private final Map<String, CompiledRoute> routesByPath = new HashMap<>();
+    private final ClientIpResolver clientIps;
+    private final ObjectMapper objectMapper;
+    private final int maxBodyBytes;
+
+    public RateLimitFilter(RateLimitProperties properties,
+                           ClientIpResolver clientIps,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this.clientIps = clientIps;
+        this.objectMapper = objectMapper;
+        this.maxBodyBytes = properties.maxBodyBytes();
+        if (!properties.enabled()) {
+            return;
+        }
+        properties.routes().forEach((name, route) -> {
+            if (route.path() == null || (route.ip() == null && route.email() == null)) {
+                throw new IllegalArgumentException("app.rate-limit.routes." + name + " needs a path and an ip and/or email limit");
+            }
+            routesByPath.put(normalize(route.path()), new CompiledRoute(
+                    name,
+                    route.method().toUpperCase(Locale.ROOT),
+                    limiter(route.ip(), properties.maxKeys()),
+                    limiter(route.email(), properties.maxKeys()),
+                    counter(meterRegistry, name, "allowed"),
+                    counter(meterRegistry, name, "rejected_ip"),
+                    counter(meterRegistry, name, "rejected_email"),
+                    counter(meterRegistry, name, "too_large"),
+                    counter(meterRegistry, name, "allowlisted"),
+                    counter(meterRegistry, name, "denied")));
+        });
+    }
+
+    private static TokenBucketLimiter limiter(RateLimitProperties.Limit limit, int maxKeys) {
+        return limit == null ? null
+                : new TokenBucketLimiter(limit.burst(), limit.sustained(), limit.period().toMillis(), maxKeys);
+    }
+
+    private static Counter counter(MeterRegistry registry, String route, String outcome) {
+        return Counter.builder("auth.rate-limit.requests")
+                .tag("route", route)
+                .tag("outcome", outcome)
+                .description("Requests seen by the rate-limit filter")
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return routeOf(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        CompiledRoute route = routeOf(request);
+
+        IpAddress ip = clientIps.resolve(request);
+        if (clientIps.isDenylisted(ip)) {
+            route.denied().increment();
+            response.setStatus(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+        if (clientIps.isAllowlisted(ip)) {
+            route.allowlisted().increment();
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (route.byIp() != null) {
+            IpAddress key = clientIps.rateKey(ip);
+            long waitMs = route.byIp().acquire(key.hi(), key.lo());
+            if (waitMs > 0) {
+                route.rejectedIp().increment();
+                reject(response, waitMs);
+                return;
+            }
+        }
+
+        HttpServletRequest forwarded = request;
+        if (route.byEmail() != null) {
+            // whatever the declared length or content type: an email-keyed route is never passed unread
+            byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+            if (body.length > maxBodyBytes) {
+                route.tooLarge().increment();
+                response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                return;
+            }
+            CachedBodyRequest cached = new CachedBodyRequest(request, body);
+            forwarded = cached;
+            String email = emailOf(cached.body());
+            if (email != null) {
+                long waitMs = route.byEmail().acquire(email);
+                if (waitMs > 0) {
+                    route.rejectedEmail().increment();
+                    reject(response, waitMs);
+                    return;
+                }
+            }
+        }
+
+        route.allowed().increment();
+        chain.doFilter(forwarded, response);
+    }
+
+    private CompiledRoute routeOf(HttpServletRequest request) {
+        if (routesByPath.isEmpty()) {
+            return null;
+        }
+        CompiledRoute route = routesByPath.get(normalize(PATHS.getPathWithinApplication(request)));
+        return route != null && route.method().equalsIgnoreCase(request.getMethod()) ? route : null;
+    }
+
+    private static String normalize(String path) {
+        return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    private String emailOf(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            log.debug("Rate limit: unreadable JSON body ({})", e.getMessage());
+            return null; // the controller answers 400
+        }
+    }
+
+    private static void reject(HttpServletResponse response, long waitMs) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (waitMs + 999) / 1000)));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Too many requests, retry later.");
+    }
+}
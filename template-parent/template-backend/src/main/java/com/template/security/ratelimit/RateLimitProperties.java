@@ -0,0 +1,39 @@
+package com.template.security.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Per-route limits of {@link RateLimitFilter} ({@code app.rate-limit.*}), e.g.
+ * <pre>
+ * app.rate-limit.routes.login.path=/auth/login
+ * app.rate-limit.routes.login.ip.burst=20
+ * app.rate-limit.routes.login.ip.sustained=60
+ * app.rate-limit.routes.login.ip.period=1m
+ * app.rate-limit.routes.login.email.burst=5
+ * app.rate-limit.routes.login.email.sustained=10
+ * </pre>
+ * A route is keyed by IP, by the JSON body's {@code email}, or both (both must allow the request).
+ */
+@ConfigurationProperties(prefix = "app.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        // keys tracked per route and key type (16 bytes each, fixed)
+        @DefaultValue("65536") int maxKeys,
+        // bodies of email-keyed routes larger than this are rejected with 413
+        @DefaultValue("16384") int maxBodyBytes,
+        Map<String, Route> routes
+) {
+
+    public RateLimitProperties {
+        routes = routes == null ? Map.of() : Map.copyOf(routes);
+    }
+
+    public record Route(String path, @DefaultValue("POST") String method, Limit ip, Limit email) {}
+
+    /** Bursts of {@code burst} requests, {@code sustained} per {@code period} in the long run. */
+    public record Limit(int burst, int sustained, @DefaultValue("1m") Duration period) {}
+}
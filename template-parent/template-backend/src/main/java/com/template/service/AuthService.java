@@ -1,13 +1,16 @@
 package com.template.service;
 
+import com.template.entity.Role;
 import com.template.entity.User;
 import com.template.repository.UserRepository;
+import com.template.security.AuthPrincipalCache;
 
 import jakarta.validation.Validator;
 
 import com.template.dto.RegisterRequestDTO;
 import com.template.dto.LoginRequestDTO;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -20,11 +23,19 @@ public class AuthService {
     private final UserRepository repo;
     private final PasswordEncoder encoder;
     private final Validator validator;
+    private final PasswordUpgradeService passwordUpgrades;
+    private final EmailBloomFilter knownEmails;
+    private final AuthPrincipalCache principals;
 
-    public AuthService(UserRepository repo, PasswordEncoder encoder, Validator validator) {
+    public AuthService(UserRepository repo, PasswordEncoder encoder, Validator validator,
+                       PasswordUpgradeService passwordUpgrades, EmailBloomFilter knownEmails,
+                       AuthPrincipalCache principals) {
         this.repo = repo;
         this.encoder = encoder;
         this.validator = validator;
+        this.passwordUpgrades = passwordUpgrades;
+        this.knownEmails = knownEmails;
+        this.principals = principals;
     }
 
     @Transactional
@@ -44,7 +55,8 @@ public class AuthService {
     	
     	var email = normalizeEmail(dto.email());
     	
-        if (repo.existsByEmail(email)) {
+        // a definite "unknown" from the filter skips the lookup; the unique index still guards races
+        if (knownEmails.mightContain(email) && repo.existsByEmail(email)) {
             throw new RuntimeException("Email already used");
         }
         User user = new User();
@@ -52,21 +64,36 @@ public class AuthService {
         user.setPassword(encoder.encode(dto.password()));
         user.setFirstName(dto.firstName());
         user.setLastName(dto.lastName());
-        user.getRoles().add("USER");
-
-        return repo.save(user);
+        user.addRole(Role.USER);
+
+        User saved;
+        try {
+            saved = repo.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // created on another instance since the filter's last sync (or concurrently)
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Email already used");
+        }
+        knownEmails.put(email);
+        principals.evict(email); // after commit
+        return saved;
     }
 
-    @Transactional(readOnly = true)
+    // No transaction: BCrypt (and its bulkhead queue) must not run while a pooled connection is held.
+    // Credentials are checked against the cached principal; the rehash UPDATE gets its own short transaction
+    // and the entity (names for the response, refresh token owner) is loaded by primary key once the password matched
     public User login(LoginRequestDTO dto) {
 
-        User user = repo.findByEmail(dto.email())
+        var principal = principals.get(dto.email())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Incorrect credentials"));
 
-        if (!encoder.matches(dto.password(), user.getPassword())) {
+        if (!encoder.matches(dto.password(), principal.password())) {
             throw new RuntimeException("Incorrect credentials");
         }
-        return user;
+        if (passwordUpgrades.upgradeIfNeeded(principal.id(), principal.password(), dto.password())) {
+            principals.evict(principal.email());
+        }
+        return repo.findById(principal.id())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Incorrect credentials"));
     }
 
 	private String normalizeEmail(String email) {
@@ -0,0 +1,50 @@
+package com.template.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+//Purges a table in bounded chunks instead of one unbounded DELETE.
+//Each chunk is a short transaction of its own (select ids by index, delete by primary key), so InnoDB never holds
+//locks on more than chunk-size rows; the run pauses between chunks to let other writers through and stops
+//at its deadline, leaving the rest to the next run.
+final class ChunkedDeleter {
+
+    record Result(long rows, int chunks, long elapsedMillis, boolean complete) {}
+
+    private final int chunkSize;
+    private final long pauseMillis;
+
+    ChunkedDeleter(int chunkSize, long pauseMillis) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+    }
+
+    /**
+     * Calls {@code chunk} (limit -> rows deleted) until a chunk comes back short or {@code deadlineNanos}
+     * ({@link System#nanoTime()} based) is reached.
+     */
+    Result run(IntUnaryOperator chunk, long deadlineNanos) {
+        long start = System.nanoTime();
+        long rows = 0;
+        int chunks = 0;
+        boolean complete = false;
+        while (System.nanoTime() < deadlineNanos) {
+            int deleted = chunk.applyAsInt(chunkSize);
+            rows += deleted;
+            chunks++;
+            if (deleted < chunkSize) {
+                complete = true;
+                break;
+            }
+            if (pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return new Result(rows, chunks, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), complete);
+    }
+}
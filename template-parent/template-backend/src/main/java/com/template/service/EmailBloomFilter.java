@@ -0,0 +1,222 @@
+package com.template.service;
+
+import com.template.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the normalized emails of existing accounts, kept in front of the users table:
+ * {@code mightContain == false} is a definite "no such account" and the DB lookup can be skipped
+ * (register of a new address, forgot-password for an unknown one). {@code true} still needs the DB.
+ * <p>
+ * Filled once at startup by streaming the emails, then on each local register and every
+ * {@code sync-interval-ms} with the accounts created since (on any instance), by primary key. Each sync
+ * starts from the highest id of the sync before, so a register still in flight when its id was passed is
+ * picked up by the next round. Until the initial load is done, or when the last successful sync is older than
+ * three intervals, every lookup answers {@code true}, so callers just fall through to the DB.
+ * Accounts are never deleted here; a removed user only costs a false positive.
+ * Sizing: about 9.6 bits (1.2 bytes) per expected email at 1% false positives, 14.4 bits at 0.1%.
+ */
+@Component
+public class EmailBloomFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailBloomFilter.class);
+
+    private static final int SYNC_PAGE = 1000;
+
+    private final UserRepository userRepo;
+    private final long expectedInsertions;
+    private final long numBits;
+    private final int numHashes;
+    private final AtomicLongArray bits;
+    private final AtomicLong bitCount = new AtomicLong();
+    private final long maxStalenessNanos;
+    private volatile boolean ready;
+    private volatile long syncedAt;
+    // guarded by this (load/sync)
+    private long syncFrom;
+    private long highestId;
+
+    public EmailBloomFilter(UserRepository userRepo,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${app.email-filter.fpp:0.01}") double fpp,
+                            @Value("${app.email-filter.sync-interval-ms:5000}") long syncIntervalMs) {
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("app.email-filter.fpp should be in (0, 1)");
+        }
+        this.userRepo = userRepo;
+        this.expectedInsertions = Math.max(1, expectedInsertions);
+        long optimalBits = (long) Math.ceil(-this.expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int words = Math.toIntExact(Math.max(1, (optimalBits + 63) / 64));
+        this.numBits = words * 64L;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / this.expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray(words);
+        this.maxStalenessNanos = syncIntervalMs > 0 ? TimeUnit.MILLISECONDS.toNanos(syncIntervalMs * 3) : Long.MAX_VALUE;
+
+        Gauge.builder("auth.email-filter.size", this, EmailBloomFilter::approximateSize)
+                .description("Approximate number of emails in the filter")
+                .register(meterRegistry);
+        Gauge.builder("auth.email-filter.fpp", this, EmailBloomFilter::expectedFpp)
+                .description("Current false-positive probability")
+                .register(meterRegistry);
+        Gauge.builder("auth.email-filter.capacity", this, f -> f.expectedInsertions)
+                .description("Emails the filter was sized for (app.email-filter.expected-insertions)")
+                .register(meterRegistry);
+        Gauge.builder("auth.email-filter.memory", this, f -> f.numBits / 8.0)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void load() {
+        long start = System.nanoTime();
+        LongAdder n = new LongAdder();
+        Long maxId = userRepo.findMaxId(); // before the stream: later accounts come with the next sync
+        highestId = maxId == null ? 0 : maxId;
+        syncFrom = highestId;
+        try (Stream<String> emails = userRepo.streamAllEmails()) {
+            // not peek().count(): count() may skip the pipeline on a sized stream
+            emails.forEach(e -> {
+                put(e);
+                n.increment();
+            });
+        }
+        syncedAt = System.nanoTime();
+        ready = true;
+        log.info("Email filter loaded: {} emails in {} ms ({} KiB, {} hashes, fpp {})",
+                n.sum(), (System.nanoTime() - start) / 1_000_000, numBits / 8 / 1024, numHashes,
+                String.format(Locale.ROOT, "%.4f", expectedFpp()));
+        if (n.sum() > expectedInsertions) {
+            log.warn("Email filter over capacity ({} > {}): raise app.email-filter.expected-insertions", n.sum(), expectedInsertions);
+        }
+    }
+
+    /** Adds the accounts created since the previous sync, by this instance or another one. */
+    @Scheduled(fixedDelayString = "${app.email-filter.sync-interval-ms:5000}",
+               initialDelayString = "${app.email-filter.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        if (!ready) {
+            return;
+        }
+        long from = syncFrom;
+        long highest = highestId;
+        List<UserRepository.EmailRow> rows;
+        do {
+            rows = userRepo.findByIdGreaterThanOrderById(from, PageRequest.of(0, SYNC_PAGE));
+            for (UserRepository.EmailRow row : rows) {
+                put(row.email());
+                from = row.id();
+                highest = Math.max(highest, row.id());
+            }
+        } while (rows.size() == SYNC_PAGE);
+        syncFrom = highestId; // one round of overlap for ids committed out of order
+        highestId = highest;
+        syncedAt = System.nanoTime();
+    }
+
+    public void put(String email) {
+        if (email == null) {
+            return;
+        }
+        long[] h = hash(normalize(email));
+        for (int i = 0; i < numHashes; i++) {
+            if (setBit(index(h, i))) {
+                bitCount.incrementAndGet();
+            }
+        }
+    }
+
+    /** {@code false}: definitely no account with this email. {@code true}: maybe, ask the DB. */
+    public boolean mightContain(String email) {
+        if (!ready || email == null || System.nanoTime() - syncedAt > maxStalenessNanos) {
+            return true;
+        }
+        long[] h = hash(normalize(email));
+        for (int i = 0; i < numHashes; i++) {
+            long bit = index(h, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Probability that {@link #mightContain} answers true for an absent email, from the bits set so far. */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount.get() / numBits, numHashes);
+    }
+
+    /** Number of distinct emails inserted, estimated from the fill ratio (Swamidass & Baldi). */
+    public long approximateSize() {
+        double fill = (double) bitCount.get() / numBits;
+        if (fill >= 1.0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.round(-numBits / (double) numHashes * Math.log1p(-fill));
+    }
+
+    private boolean setBit(long bit) {
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long prev;
+        do {
+            prev = bits.get(word);
+            if ((prev & mask) != 0) {
+                return false;
+            }
+        } while (!bits.compareAndSet(word, prev, prev | mask));
+        return true;
+    }
+
+    // Kirsch-Mitzenmacher: k indexes from two 64-bit hashes
+    private long index(long[] h, int i) {
+        return ((h[0] + i * h[1]) & Long.MAX_VALUE) % numBits;
+    }
+
+    private static long[] hash(String s) {
+        long a = 0xcbf29ce484222325L;
+        long b = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            a = (a ^ c) * 0x100000001b3L;
+            b = Long.rotateLeft(b + c, 27) * 0xff51afd7ed558ccdL;
+        }
+        return new long[] { fmix64(a), fmix64(b ^ s.length()) | 1 };
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,17 +1,26 @@
 // com.template.service.ForgotPasswordService.java
 package com.template.service;
 
+import com.template.entity.MailOutbox;
 import com.template.entity.PasswordResetToken;
 import com.template.entity.User;
 import com.template.repository.PasswordResetTokenRepository;
 import com.template.repository.UserRepository;
+import com.template.security.SecureTokenGenerator;
+import com.template.security.SecurityVersionService;
+import com.template.security.SignedResetTokens;
+import com.template.security.TokenDigest;
+import com.template.security.ip.IpAddress;
+import com.template.service.mail.MailOutboxService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.security.SecureRandom;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Base64;
 import java.util.Optional;
 import java.util.Locale;
 
@@ -26,77 +35,173 @@ public class ForgotPasswordService {
     private final UserRepository userRepository;
     private final PasswordResetTokenRepository tokenRepository;
     private final PasswordEncoder passwordEncoder;
-    private final MailService mailService;
+    private final MailOutboxService mailOutbox;
     private final RateLimiterService rateLimiter;
+    private final SecurityVersionService securityVersions;
+    private final RefreshTokenService refreshTokens;
+    private final EmailBloomFilter knownEmails;
+    private final SignedResetTokens signedTokens;
+    private final SecureTokenGenerator randomTokens;
+    private final PasswordResetTokenMigration tokenMigration;
+    // table: tokens are rows of password_reset_tokens | signed: self-contained HMAC tokens, nothing stored
+    private final boolean signedMode;
+    // table mode. hash: only the SHA-256 of the token is stored (token_hash) | plain: the raw token (legacy)
+    private final boolean hashTokens;
+    private final TransactionTemplate tx;
 
     private static final Duration TOKEN_TTL = Duration.ofMinutes(30);
 
     public ForgotPasswordService(UserRepository userRepository,
                                  PasswordResetTokenRepository tokenRepository,
                                  PasswordEncoder passwordEncoder,
-                                 MailService mailService,
-                                 RateLimiterService rateLimiter) {
+                                 MailOutboxService mailOutbox,
+                                 RateLimiterService rateLimiter,
+                                 SecurityVersionService securityVersions,
+                                 RefreshTokenService refreshTokens,
+                                 EmailBloomFilter knownEmails,
+                                 SignedResetTokens signedTokens,
+                                 SecureTokenGenerator randomTokens,
+                                 PasswordResetTokenMigration tokenMigration,
+                                 PlatformTransactionManager txManager,
+                                 @Value("${app.password-reset.mode:table}") String mode,
+                                 @Value("${app.password-reset.token-storage:hash}") String tokenStorage) {
         this.userRepository = userRepository;
         this.tokenRepository = tokenRepository;
         this.passwordEncoder = passwordEncoder;
-        this.mailService = mailService;
+        this.mailOutbox = mailOutbox;
         this.rateLimiter = rateLimiter;
+        this.securityVersions = securityVersions;
+        this.refreshTokens = refreshTokens;
+        this.knownEmails = knownEmails;
+        this.signedTokens = signedTokens;
+        this.randomTokens = randomTokens;
+        this.tokenMigration = tokenMigration;
+        this.tx = new TransactionTemplate(txManager);
+        this.signedMode = switch (mode.trim().toLowerCase()) {
+            case "table" -> false;
+            case "signed" -> true;
+            default -> throw new IllegalArgumentException("app.password-reset.mode should be table or signed");
+        };
+        this.hashTokens = switch (tokenStorage.trim().toLowerCase()) {
+            case "hash" -> true;
+            case "plain" -> false;
+            default -> throw new IllegalArgumentException("app.password-reset.token-storage should be hash or plain");
+        };
     }
 
-    public void requestReset(String email, String requesterIp, String frontResetUrlBase, Locale locale) {
+    // token and mail are committed together; the SMTP exchange happens later, off the request thread
+    @Transactional
+    public void requestReset(String email, IpAddress requesterIp, String frontResetUrlBase, Locale locale) {
         boolean ipAllowed = rateLimiter.allowIp(requesterIp);
         boolean emailAllowed = rateLimiter.allowEmail(email);
         if (!ipAllowed || !emailAllowed) {
             return; // anti-enumération
         }
 
+        if (!knownEmails.mightContain(email)) {
+            return; // anti-disclosure, no DB round trip
+        }
         Optional<User> optUser = userRepository.findByEmail(email);
         if (optUser.isEmpty()) {
             return; // anti-disclosure
         }
 
         User user = optUser.get();
-        String token = generateSecureToken(48);
         Instant now = Instant.now();
         Instant expires = now.plus(TOKEN_TTL);
-
-        PasswordResetToken prt = new PasswordResetToken(user, token, now, expires);
-        tokenRepository.save(prt);
+        String token = signedMode
+                ? signedTokens.issue(user.getId(), user.getSecurityVersion(), expires)
+                : storeToken(user, now, expires);
 
         String resetLink = frontResetUrlBase + "?token=" + token;
-        // Envoi i18n
-        mailService.sendPasswordResetEmail(user.getEmail(), resetLink, locale);
+        // Envoi i18n (outbox)
+        mailOutbox.enqueue(MailOutbox.Kind.PASSWORD_RESET, user.getEmail(), locale, resetLink, expires);
+    }
+
+    private String storeToken(User user, Instant now, Instant expires) {
+        String token = randomTokens.nextToken(48);
+        PasswordResetToken prt = hashTokens
+                ? new PasswordResetToken(user, TokenDigest.sha256(token), now, expires)
+                : new PasswordResetToken(user, token, now, expires);
+        tokenRepository.save(prt);
+        return token;
     }
 
+    /**
+     * An indexed read first refuses unknown, used or expired tokens, so only a valid token costs a BCrypt.
+     * The new password is then hashed outside any transaction, and one short transaction consumes the token
+     * with a conditional UPDATE (a concurrent reset with the same token gets 0 rows) and updates the user row.
+     */
     public boolean resetPassword(String token, String rawNewPassword) {
-        Optional<PasswordResetToken> opt = tokenRepository.findByToken(token);
-        if (opt.isEmpty()) {
-            log.warn("Reset failed: token not found");
+        if (signedMode) {
+            return resetWithSignedToken(token, rawNewPassword);
+        }
+        Instant now = Instant.now();
+        TokenColumn column = validTokenColumn(token, now);
+        if (column == null) {
+            log.warn("Reset failed: token unknown, used or expired");
+            return false;
+        }
+        String newHash = passwordEncoder.encode(rawNewPassword);
+
+        PasswordResetTokenRepository.TokenOwner owner = tx.execute(status -> {
+            Optional<PasswordResetTokenRepository.TokenOwner> claimed = column == TokenColumn.HASH
+                    ? tokenRepository.consumeByHash(TokenDigest.sha256(token), now)
+                    : tokenRepository.consumeByToken(token, now);
+            if (claimed.isEmpty()) {
+                return null;
+            }
+            Long userId = claimed.get().getUserId();
+            // new hash + security version bump: every access token issued before the reset is stale
+            userRepository.resetPassword(userId, newHash);
+            refreshTokens.revokeAll(userId);
+            securityVersions.evict(claimed.get().getEmail()); // after commit
+            return claimed.get();
+        });
+        if (owner == null) {
+            log.warn("Reset failed: token consumed or expired meanwhile");
             return false;
         }
+        return true;
+    }
 
-        PasswordResetToken prt = opt.get();
-        if (prt.isUsed()) {
-            log.warn("Reset failed: token already used");
+    // Signature and expiry are checked in memory (a forged link costs neither a hash nor a query),
+    // then one conditional update on the security version the token was issued for
+    private boolean resetWithSignedToken(String token, String rawNewPassword) {
+        Optional<SignedResetTokens.Claims> claims = signedTokens.verify(token, Instant.now());
+        if (claims.isEmpty()) {
+            log.warn("Reset failed: token invalid or expired");
             return false;
         }
-        if (prt.isExpired()) {
-            log.warn("Reset failed: token expired");
+        long userId = claims.get().userId();
+        String newHash = passwordEncoder.encode(rawNewPassword);
+
+        Boolean done = tx.execute(status -> {
+            if (userRepository.resetPasswordIfVersion(userId, claims.get().securityVersion(), newHash) == 0) {
+                return false;
+            }
+            refreshTokens.revokeAll(userId);
+            userRepository.findEmailById(userId).ifPresent(securityVersions::evict); // after commit
+            return true;
+        });
+        if (!Boolean.TRUE.equals(done)) {
+            log.warn("Reset failed: token already used");
             return false;
         }
-
-        User user = prt.getUser();
-        user.setPassword(passwordEncoder.encode(rawNewPassword));
-        userRepository.save(user);
-
-        prt.setUsedAt(Instant.now());
-        tokenRepository.save(prt);
         return true;
     }
 
-    private String generateSecureToken(int numBytes) {
-        byte[] bytes = new byte[numBytes];
-        new SecureRandom().nextBytes(bytes);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    private enum TokenColumn { HASH, PLAIN }
+
+    // Column holding a valid row for this token, null when there is none. The raw column is only searched in
+    // hash mode while PasswordResetTokenMigration has left raw rows behind.
+    private TokenColumn validTokenColumn(String token, Instant now) {
+        if (hashTokens && tokenRepository.existsValidByHash(TokenDigest.sha256(token), now)) {
+            return TokenColumn.HASH;
+        }
+        if ((!hashTokens || !tokenMigration.isComplete()) && tokenRepository.existsValidByToken(token, now)) {
+            return TokenColumn.PLAIN;
+        }
+        return null;
     }
 }
@@ -1,14 +1,22 @@
 package com.template.service;
 
+import com.template.entity.MailOutbox;
+import com.template.repository.MailOutboxRepository;
 import com.template.repository.PasswordResetTokenRepository;
+import com.template.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class PasswordResetCleanupService {
@@ -17,26 +25,76 @@ public class PasswordResetCleanupService {
 
     private final PasswordResetTokenRepository tokenRepository;
     private final RateLimiterService rateLimiterService;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final MailOutboxRepository mailOutboxRepository;
     private final int usedRetentionDays;
+    private final long outboxRetentionHours;
+    private final ChunkedDeleter deleter;
+    private final long budgetNanos;
+    private final Counter deletedTokens;
 
     public PasswordResetCleanupService(PasswordResetTokenRepository tokenRepository,
                                        RateLimiterService rateLimiterService,
-                                       @Value("${app.password-reset.cleanup.used-retention-days}") int usedRetentionDays) {
+                                       RefreshTokenRepository refreshTokenRepository,
+                                       MailOutboxRepository mailOutboxRepository,
+                                       @Value("${app.password-reset.cleanup.used-retention-days}") int usedRetentionDays,
+                                       @Value("${app.mail.outbox.retention-hours:24}") long outboxRetentionHours,
+                                       @Value("${app.password-reset.cleanup.chunk-size:500}") int chunkSize,
+                                       @Value("${app.password-reset.cleanup.pause-ms:50}") long pauseMs,
+                                       @Value("${app.password-reset.cleanup.budget-ms:10000}") long budgetMs,
+                                       MeterRegistry meterRegistry) {
         this.tokenRepository = tokenRepository;
         this.rateLimiterService = rateLimiterService;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.mailOutboxRepository = mailOutboxRepository;
         this.usedRetentionDays = usedRetentionDays;
+        this.outboxRetentionHours = outboxRetentionHours;
+        this.deleter = new ChunkedDeleter(chunkSize, pauseMs);
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, budgetMs));
+        this.deletedTokens = Counter.builder("cleanup.rows.deleted")
+                .description("Rows removed by the cleanup job")
+                .tag("table", "password_reset_tokens")
+                .register(meterRegistry);
     }
 
     @Scheduled(cron = "${app.password-reset.cleanup.cron}")
     public void cleanupTokensAndLimiter() {
         Instant now = Instant.now();
-        int expired = tokenRepository.deleteAllExpired(now);
+        // one time budget for both passes; whatever is left goes to the next run
+        long deadline = System.nanoTime() + budgetNanos;
+        ChunkedDeleter.Result expired = deleter.run(
+                limit -> deleteTokens(tokenRepository.findExpiredIds(now, PageRequest.of(0, limit))), deadline);
 
         Instant threshold = now.minus(usedRetentionDays, ChronoUnit.DAYS);
-        int used = tokenRepository.deleteAllUsedBefore(threshold);
+        ChunkedDeleter.Result used = deleter.run(
+                limit -> deleteTokens(tokenRepository.findUsedIdsBefore(threshold, PageRequest.of(0, limit))), deadline);
+        if (!expired.complete() || !used.complete()) {
+            log.warn("Password reset cleanup stopped by its time budget, remaining rows go to the next run");
+        }
+
+        int refresh = refreshTokenRepository.deleteAllExpired(now);
+
+        // expired links leave the outbox now; sent and dead mails after the retention, pending ones are kept
+        int expiredMails = mailOutboxRepository.expirePending(MailOutbox.Status.PENDING, MailOutbox.Status.DEAD, now);
+        int mails = mailOutboxRepository.deleteAllDoneBefore(MailOutbox.Status.PENDING,
+                now.minus(outboxRetentionHours, ChronoUnit.HOURS));
 
         rateLimiterService.cleanup();
 
-        log.info("Password reset cleanup done: expired={}, used(old)={}", expired, used);
+        long tokens = expired.rows() + used.rows();
+        long tokenMillis = expired.elapsedMillis() + used.elapsedMillis();
+        log.info("Password reset cleanup done: expired={}, used(old)={} ({} chunks, {} rows/s), refresh(expired)={}, mails(expired)={}, mails(done)={}",
+                expired.rows(), used.rows(), expired.chunks() + used.chunks(),
+                tokenMillis == 0 ? tokens : Math.round(tokens * 1000.0 / tokenMillis), refresh, expiredMails, mails);
+    }
+
+    private int deleteTokens(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = tokenRepository.deleteAllByIds(ids);
+        deletedTokens.increment(deleted);
+        // a short count (rows taken by a concurrent run) ends the pass, the other run finishes the table
+        return deleted;
     }
 }
\ No newline at end of file
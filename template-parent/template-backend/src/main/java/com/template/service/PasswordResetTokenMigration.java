@@ -0,0 +1,101 @@
+package com.template.service;
+
+import com.template.repository.PasswordResetTokenRepository;
+import com.template.security.TokenDigest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+//Rewrites reset tokens stored raw (before app.password-reset.token-storage=hash) into token_hash, in batches
+//at startup. Each row is replaced only if its token did not change meanwhile; links already sent keep working.
+//Same thing in one MySQL statement:
+//UPDATE password_reset_tokens SET token_hash = UNHEX(SHA2(token, 256)), token = NULL WHERE token IS NOT NULL AND token_hash IS NULL;
+//Hash storage writes rows without a raw token, which ddl-auto=update does not allow on a table created before:
+//startup stops with the ALTER to run while the token column is still NOT NULL.
+@Component
+public class PasswordResetTokenMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordResetTokenMigration.class);
+
+    private static final String RELAX_TOKEN_COLUMN = "ALTER TABLE password_reset_tokens MODIFY token varchar(180) NULL";
+
+    private final PasswordResetTokenRepository repo;
+    private final DataSource dataSource;
+    private final boolean hashStorage;
+    private final boolean enabled;
+    private final int batchSize;
+    // true once no raw token is left: ForgotPasswordService stops looking tokens up by the raw column
+    private volatile boolean complete;
+
+    public PasswordResetTokenMigration(PasswordResetTokenRepository repo,
+                                       DataSource dataSource,
+                                       @Value("${app.password-reset.token-storage:hash}") String tokenStorage,
+                                       @Value("${app.password-reset.migrate-plain-tokens:true}") boolean migrate,
+                                       @Value("${app.password-reset.migration-batch-size:500}") int batchSize) {
+        this.repo = repo;
+        this.dataSource = dataSource;
+        this.hashStorage = "hash".equalsIgnoreCase(tokenStorage.trim());
+        this.enabled = migrate && hashStorage;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (hashStorage && !tokenColumnNullable()) {
+            throw new IllegalStateException("password_reset_tokens.token is NOT NULL, hashed reset tokens cannot be "
+                    + "stored: run \"" + RELAX_TOKEN_COLUMN + "\" (or set app.password-reset.token-storage=plain)");
+        }
+        if (!enabled) {
+            return;
+        }
+        int migrated = 0;
+        while (true) {
+            List<PasswordResetTokenRepository.PlainToken> batch = repo.findPlainTokens(PageRequest.of(0, batchSize));
+            int done = 0;
+            for (PasswordResetTokenRepository.PlainToken t : batch) {
+                done += repo.replaceWithHash(t.getId(), t.getToken(), TokenDigest.sha256(t.getToken()));
+            }
+            migrated += done;
+            if (batch.size() < batchSize || done == 0) {
+                break;
+            }
+        }
+        complete = repo.findPlainTokens(PageRequest.of(0, 1)).isEmpty();
+        if (migrated > 0) {
+            log.info("Password reset tokens migrated to token_hash: {}", migrated);
+        }
+        if (!complete) {
+            log.warn("Raw password reset tokens left after migration: looked up by token as well until the next run");
+        }
+    }
+
+    private boolean tokenColumnNullable() {
+        try (Connection c = dataSource.getConnection()) {
+            DatabaseMetaData meta = c.getMetaData();
+            boolean upper = meta.storesUpperCaseIdentifiers();
+            try (ResultSet rs = meta.getColumns(c.getCatalog(), null,
+                    upper ? "PASSWORD_RESET_TOKENS" : "password_reset_tokens", upper ? "TOKEN" : "token")) {
+                // no such column (table not created yet): nothing to relax
+                return !rs.next() || rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Cannot read the password_reset_tokens schema", e);
+        }
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
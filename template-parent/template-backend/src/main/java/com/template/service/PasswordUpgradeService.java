@@ -0,0 +1,48 @@
+package com.template.service;
+
+import com.template.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+//Transparent rehash of a stored password after a successful login, when the encoder says its
+//parameters changed (calibrated BCrypt strength, legacy hash without {id} prefix).
+//The new hash is computed outside any transaction; only the compare-and-set UPDATE runs in a short one of its own.
+//A failed rehash never fails the login.
+@Service
+public class PasswordUpgradeService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordUpgradeService.class);
+
+    private final UserRepository repo;
+    private final PasswordEncoder encoder;
+    private final TransactionTemplate tx;
+
+    public PasswordUpgradeService(UserRepository repo, PasswordEncoder encoder, PlatformTransactionManager txManager) {
+        this.repo = repo;
+        this.encoder = encoder;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /** @return true when the stored hash was replaced */
+    public boolean upgradeIfNeeded(Long userId, String current, CharSequence rawPassword) {
+        if (!encoder.upgradeEncoding(current)) {
+            return false;
+        }
+        try {
+            String upgraded = encoder.encode(rawPassword);
+            Integer updated = tx.execute(status -> repo.updatePasswordHash(userId, current, upgraded));
+            if (updated != null && updated == 1) {
+                log.debug("Password hash upgraded (user id {})", userId);
+                return true;
+            }
+        } catch (RuntimeException e) {
+            // busy hashing pool or DB hiccup: keep the old hash, next login retries
+            log.warn("Password rehash skipped (user id {}): {}", userId, e.getMessage());
+        }
+        return false;
+    }
+}
@@ -1,69 +1,75 @@
 package com.template.service;
 
+import com.template.security.ip.IpAddress;
+import com.template.service.limiter.LimiterStore;
+import com.template.service.limiter.SharedWindowLimiter;
+import com.template.service.limiter.TokenBucketLimiter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
 
-//In-memory sliding‑window rate limiter that tracks request timestamps per email and per IP.
-//Removes old events and blocks when the max count is exceeded within the configured time window.
+//Rate limiter per email and per IP: max N requests per window.
+//Always enforced per node with token buckets (primitive, lock-free, fixed memory: see TokenBucketLimiter).
+//With a LimiterStore (app.limiter.store=jpa) the same budget is also enforced cluster-wide: counters are
+//shared between the backend replicas and synced in batches (see SharedWindowLimiter).
 @Service
 public class RateLimiterService {
 
-    private final Duration window;
-    private final int maxPerEmail;
-    private final int maxPerIp;
+    private final TokenBucketLimiter emailBuckets;
+    private final TokenBucketLimiter ipBuckets;
 
-    private final Map<String, Deque<Instant>> emailEvents = new ConcurrentHashMap<>();
-    private final Map<String, Deque<Instant>> ipEvents = new ConcurrentHashMap<>();
+    private final LimiterStore store;
+    private final SharedWindowLimiter sharedEmail;
+    private final SharedWindowLimiter sharedIp;
 
     public RateLimiterService(
             @Value("${app.limiter.forgot.window-seconds}") long windowSeconds,
             @Value("${app.limiter.forgot.max-per-email}") int maxPerEmail,
-            @Value("${app.limiter.forgot.max-per-ip}") int maxPerIp
+            @Value("${app.limiter.forgot.max-per-ip}") int maxPerIp,
+            @Value("${app.limiter.forgot.max-keys:65536}") int maxKeys,
+            Optional<LimiterStore> store,
+            @Value("${app.limiter.cluster.replicas:1}") int replicas,
+            @Value("${app.limiter.cluster.stale-after-ms:5000}") long staleAfterMs
     ) {
-        this.window = Duration.ofSeconds(windowSeconds);
-        this.maxPerEmail = maxPerEmail;
-        this.maxPerIp = maxPerIp;
+        long windowMillis = Duration.ofSeconds(windowSeconds).toMillis();
+        this.emailBuckets = new TokenBucketLimiter(maxPerEmail, windowMillis, maxKeys);
+        this.ipBuckets = new TokenBucketLimiter(maxPerIp, windowMillis, maxKeys);
+
+        this.store = store.orElse(null);
+        this.sharedEmail = this.store == null ? null
+                : new SharedWindowLimiter("forgot-email", maxPerEmail, windowMillis, replicas, staleAfterMs, maxKeys, System::currentTimeMillis);
+        this.sharedIp = this.store == null ? null
+                : new SharedWindowLimiter("forgot-ip", maxPerIp, windowMillis, replicas, staleAfterMs, maxKeys, System::currentTimeMillis);
     }
 
     public boolean allowEmail(String email) {
-        return allow(emailEvents, email, maxPerEmail);
+        return emailBuckets.acquire(email) == 0 && (sharedEmail == null || sharedEmail.tryAcquire(email));
     }
 
-    public boolean allowIp(String ip) {
-        return allow(ipEvents, ip, maxPerIp);
+    /** {@code ip} is the rate key of the client (see ClientIpResolver.rateKey). */
+    public boolean allowIp(IpAddress ip) {
+        return ipBuckets.acquire(ip.hi(), ip.lo()) == 0 && (sharedIp == null || sharedIp.tryAcquire(ip.toString()));
     }
 
-    private boolean allow(Map<String, Deque<Instant>> store, String key, int max) {
-        final Instant now = Instant.now();
-        final Deque<Instant> deque = store.computeIfAbsent(key, k -> new ArrayDeque<>());
-        synchronized (deque) {
-            prune(deque, now);
-            if (deque.size() >= max) {
-                return false;
-            }
-            deque.addLast(now);
-            return true;
+    /** Pushes this node's hits to the shared store and reads back the cluster totals (no-op without store). */
+    @Scheduled(fixedDelayString = "${app.limiter.cluster.sync-interval-ms:1000}")
+    public void sync() {
+        if (store != null) {
+            sharedEmail.sync(store);
+            sharedIp.sync(store);
         }
     }
 
-    private void prune(Deque<Instant> deque, Instant now) {
-        Instant threshold = now.minus(window);
-        while (!deque.isEmpty() && deque.peekFirst().isBefore(threshold)) {
-            deque.pollFirst();
-        }
-    }
-
-    /** Scheduled cleanup can call this periodically to reduce memory footprint. */
+    /** Scheduled cleanup can call this periodically; slots of idle keys are also reused on demand. */
     public void cleanup() {
-        final Instant now = Instant.now();
-        emailEvents.values().forEach(d -> { synchronized (d) { prune(d, now); } });
-        ipEvents.values().forEach(d -> { synchronized (d) { prune(d, now); } });
+        emailBuckets.evictIdle();
+        ipBuckets.evictIdle();
+        if (store != null) {
+            store.purgeExpired(Instant.now());
+        }
     }
-}
\ No newline at end of file
+}
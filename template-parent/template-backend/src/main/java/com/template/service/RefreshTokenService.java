@@ -0,0 +1,117 @@
+package com.template.service;
+
+import com.template.entity.RefreshToken;
+import com.template.entity.User;
+import com.template.repository.RefreshTokenRepository;
+import com.template.security.SecureTokenGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+
+//Rotating, single-use refresh tokens ("sliding sessions").
+//Each refresh spends the presented token and issues a new one in the same family; the idle expiry slides,
+//the family expiry (absolute session lifetime) does not. Presenting a spent token again means it was copied:
+//the whole family is revoked and both holders have to log in again.
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    public record IssuedRefreshToken(String value, Instant expiresAt) {}
+
+    public record Rotation(User user, IssuedRefreshToken next) {}
+
+    private final RefreshTokenRepository repo;
+    private final SecureTokenGenerator randomTokens;
+    private final Duration idleTtl;
+    private final Duration absoluteTtl;
+
+    public RefreshTokenService(RefreshTokenRepository repo,
+                               SecureTokenGenerator randomTokens,
+                               @Value("${app.refresh.idle-ttl-seconds:604800}") long idleTtlSeconds,
+                               @Value("${app.refresh.absolute-ttl-seconds:2592000}") long absoluteTtlSeconds) {
+        this.repo = repo;
+        this.randomTokens = randomTokens;
+        this.idleTtl = Duration.ofSeconds(idleTtlSeconds);
+        this.absoluteTtl = Duration.ofSeconds(absoluteTtlSeconds);
+    }
+
+    /** Starts a new family (one per login). */
+    @Transactional
+    public IssuedRefreshToken issue(User user) {
+        Instant now = Instant.now();
+        return create(user, UUID.randomUUID().toString(), now, now.plus(absoluteTtl));
+    }
+
+    /**
+     * Spends {@code rawToken} and returns its owner with the next token of the family.
+     * Revocations done on reuse are committed even though the call fails with 401.
+     */
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = repo.findByTokenHash(hash(rawToken))
+                .orElseThrow(RefreshTokenService::unauthorized);
+        Instant now = Instant.now();
+
+        // expired tokens are refused before being spent, so a retry is not mistaken for a reuse
+        if (current.isRevoked() || current.isExpired() || now.isAfter(current.getFamilyExpiresAt())) {
+            throw unauthorized();
+        }
+        if (current.isUsed() || repo.markUsed(current.getId(), now) == 0) {
+            // spent token presented again (or raced by another holder): assume theft
+            repo.revokeFamily(current.getFamilyId(), now);
+            log.warn("Refresh token reuse detected, family revoked (user id {})", current.getUser().getId());
+            throw unauthorized();
+        }
+
+        User user = current.getUser();
+        IssuedRefreshToken next = create(user, current.getFamilyId(), now, current.getFamilyExpiresAt());
+        return new Rotation(user, next);
+    }
+
+    /** Revokes the family of {@code rawToken} (logout). Unknown tokens are ignored. */
+    @Transactional
+    public void revoke(String rawToken) {
+        repo.findByTokenHash(hash(rawToken))
+                .ifPresent(t -> repo.revokeFamily(t.getFamilyId(), Instant.now()));
+    }
+
+    /** Revokes every session of a user (password reset, role change...). */
+    @Transactional
+    public void revokeAll(Long userId) {
+        repo.revokeAllForUser(userId, Instant.now());
+    }
+
+    private IssuedRefreshToken create(User user, String familyId, Instant now, Instant familyExpiresAt) {
+        Instant idleExpiry = now.plus(idleTtl);
+        Instant expiresAt = idleExpiry.isBefore(familyExpiresAt) ? idleExpiry : familyExpiresAt;
+        String value = randomTokens.nextToken(32);
+        repo.save(new RefreshToken(user, hash(value), familyId, now, expiresAt, familyExpiresAt));
+        return new IssuedRefreshToken(value, expiresAt);
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static ResponseStatusException unauthorized() {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+    }
+}
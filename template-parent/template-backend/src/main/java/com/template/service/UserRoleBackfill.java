@@ -0,0 +1,76 @@
+package com.template.service;
+
+import com.template.entity.Role;
+import com.template.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Fills users.role_mask from the legacy user_roles table, in batches at startup (keyset on id, so users
+//without any role are visited once). A mask already set is never overwritten. Same thing in MySQL:
+//UPDATE users u SET role_mask = (SELECT BIT_OR(CASE r.role WHEN 'USER' THEN 1 WHEN 'ADMIN' THEN 2 ELSE 0 END)
+//  FROM user_roles r WHERE r.user_id = u.id) WHERE u.role_mask = 0 AND EXISTS (SELECT 1 FROM user_roles r WHERE r.user_id = u.id);
+@Component
+public class UserRoleBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(UserRoleBackfill.class);
+
+    private final UserRepository repo;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public UserRoleBackfill(UserRepository repo,
+                            @Value("${app.roles.backfill:true}") boolean enabled,
+                            @Value("${app.roles.backfill-batch-size:500}") int batchSize) {
+        this.repo = repo;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        int updated = 0;
+        long after = 0;
+        try {
+            while (true) {
+                List<Long> ids = repo.findIdsWithoutRoles(after, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Map<Long, Long> masks = new HashMap<>();
+                for (UserRepository.LegacyRole r : repo.findLegacyRoles(ids)) {
+                    try {
+                        masks.merge(r.getUserId(), Role.valueOf(r.getRole()).bit(), (a, b) -> a | b);
+                    } catch (IllegalArgumentException | NullPointerException e) {
+                        log.warn("Unknown role '{}' of user id {} ignored", r.getRole(), r.getUserId());
+                    }
+                }
+                for (Map.Entry<Long, Long> e : masks.entrySet()) {
+                    updated += repo.initRoleMask(e.getKey(), e.getValue());
+                }
+                after = ids.get(ids.size() - 1);
+                if (ids.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (DataAccessException e) {
+            // schema created without user_roles (fresh install): nothing to migrate
+            log.debug("Role backfill skipped: {}", e.getMessage());
+        }
+        if (updated > 0) {
+            log.info("Role masks filled from user_roles: {}", updated);
+        }
+    }
+}
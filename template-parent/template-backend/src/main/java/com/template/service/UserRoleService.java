@@ -0,0 +1,54 @@
+package com.template.service;
+
+import com.template.entity.Role;
+import com.template.repository.UserRepository;
+import com.template.security.SecurityVersionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+import java.util.Set;
+
+//Role changes. Access tokens carry the roles they were issued with: the change bumps the security version
+//(older tokens are rejected), revokes the refresh tokens and evicts the cached principal after commit.
+@Service
+public class UserRoleService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserRoleService.class);
+
+    private final UserRepository repo;
+    private final RefreshTokenService refreshTokens;
+    private final SecurityVersionService securityVersions;
+
+    public UserRoleService(UserRepository repo, RefreshTokenService refreshTokens,
+                           SecurityVersionService securityVersions) {
+        this.repo = repo;
+        this.refreshTokens = refreshTokens;
+        this.securityVersions = securityVersions;
+    }
+
+    /** @return false when the user already had exactly these roles */
+    @Transactional
+    public boolean changeRoles(String email, Set<String> roles) {
+        String normalized = email.trim().toLowerCase(Locale.ROOT);
+        long mask;
+        try {
+            mask = Role.mask(roles);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown role");
+        }
+        var user = repo.findAuthPrincipalByEmail(normalized)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        if (repo.changeRoles(user.id(), mask) == 0) {
+            return false;
+        }
+        refreshTokens.revokeAll(user.id());
+        securityVersions.evict(normalized); // after commit
+        log.info("Roles of user id {} changed to {}", user.id(), Role.names(mask));
+        return true;
+    }
+}
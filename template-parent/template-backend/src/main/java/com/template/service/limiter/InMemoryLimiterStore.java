@@ -0,0 +1,32 @@
+package com.template.service.limiter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Single-process LimiterStore: lets several SharedWindowLimiter instances (nodes) share counters in tests.
+public class InMemoryLimiterStore implements LimiterStore {
+
+    private record Row(long hits, Instant expiresAt) {}
+
+    private final Map<String, Row> rows = new ConcurrentHashMap<>();
+
+    @Override
+    public long[] apply(List<Increment> increments) {
+        long[] totals = new long[increments.size()];
+        for (int i = 0; i < totals.length; i++) {
+            Increment inc = increments.get(i);
+            totals[i] = rows.merge(inc.id(), new Row(inc.delta(), inc.expiresAt()),
+                    (old, add) -> new Row(old.hits() + add.hits(), old.expiresAt())).hits();
+        }
+        return totals;
+    }
+
+    @Override
+    public int purgeExpired(Instant now) {
+        int before = rows.size();
+        rows.values().removeIf(r -> r.expiresAt().isBefore(now));
+        return before - rows.size();
+    }
+}
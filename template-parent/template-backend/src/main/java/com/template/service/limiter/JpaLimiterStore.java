@@ -0,0 +1,61 @@
+package com.template.service.limiter;
+
+import com.template.repository.RateLimitCounterRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+//LimiterStore on the application datasource (table rate_limit_counters), enabled by app.limiter.store=jpa.
+//One short transaction per counter: update-or-insert, then read back the total.
+@Component
+@ConditionalOnProperty(name = "app.limiter.store", havingValue = "jpa")
+public class JpaLimiterStore implements LimiterStore {
+
+    private final RateLimitCounterRepository repo;
+    private final TransactionTemplate tx;
+
+    public JpaLimiterStore(RateLimitCounterRepository repo, PlatformTransactionManager txManager) {
+        this.repo = repo;
+        this.tx = new TransactionTemplate(txManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public long[] apply(List<Increment> increments) {
+        long[] totals = new long[increments.size()];
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = apply(increments.get(i));
+        }
+        return totals;
+    }
+
+    private long apply(Increment inc) {
+        try {
+            return addAndGet(inc);
+        } catch (DataIntegrityViolationException e) {
+            // another node inserted the same counter between our update and insert: the row exists now
+            return addAndGet(inc);
+        }
+    }
+
+    private long addAndGet(Increment inc) {
+        Long total = tx.execute(status -> {
+            if (repo.increment(inc.id(), inc.delta()) == 0) {
+                repo.insert(inc.id(), inc.delta(), inc.expiresAt());
+            }
+            return repo.findHits(inc.id()).orElse(inc.delta());
+        });
+        return total != null ? total : inc.delta();
+    }
+
+    @Override
+    public int purgeExpired(Instant now) {
+        return repo.deleteAllExpired(now);
+    }
+}
@@ -0,0 +1,20 @@
+package com.template.service.limiter;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Shared counters behind {@link SharedWindowLimiter}: every backend node adds its local hits
+ * and reads back the cluster-wide totals. Called from the sync task only, never on a request thread.
+ */
+public interface LimiterStore {
+
+    /** One counter update: {@code delta} hits for {@code id}, kept until {@code expiresAt}. */
+    record Increment(String id, long delta, Instant expiresAt) {}
+
+    /** Applies the increments and returns the resulting totals, in the same order. */
+    long[] apply(List<Increment> increments);
+
+    /** Drops the counters of finished windows. */
+    int purgeExpired(Instant now);
+}
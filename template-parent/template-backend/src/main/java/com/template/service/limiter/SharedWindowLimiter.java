@@ -0,0 +1,171 @@
+package com.template.service.limiter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cluster-wide fixed-window limit ({@code limit} hits per key per window, windows aligned on the
+ * wall clock so every node agrees on them) backed by a {@link LimiterStore}.
+ * <p>
+ * Requests never wait for the store: a node decides on the last cluster total it read plus its own hits
+ * since then, and {@link #sync} pushes those local hits in one batch per interval (one store write per
+ * active key per interval, not per request). Keys asked for since the last sync are refreshed too, so
+ * a node learns about hits made on the other nodes; keys nobody asked for are left alone.
+ * <p>
+ * Accuracy, by design:
+ * <ul>
+ *   <li>store in sync: a key can exceed the limit only by what the other nodes admitted for it during
+ *       one sync interval;</li>
+ *   <li>store unreachable or slower than {@code staleAfter}: each node enforces its fair share,
+ *       {@code ceil(limit / replicas)} per window, from its own counts only; unsent hits are kept and pushed
+ *       once the store answers again.</li>
+ * </ul>
+ * At most {@code maxKeys} keys are tracked per window; beyond that {@link #tryAcquire} answers
+ * {@code true} and the caller's local limiter is the only check for the untracked keys.
+ */
+public final class SharedWindowLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedWindowLimiter.class);
+
+    private static final class Counter {
+        final long windowStart;
+        volatile long clusterTotal;                // last total read from the store (includes our pushed hits)
+        final AtomicLong unsent = new AtomicLong(); // our hits not yet acknowledged by the store
+        final AtomicLong local = new AtomicLong();  // all our hits in this window (degraded mode budget)
+        volatile boolean touched;                  // asked since the last sync: refresh its total
+
+        Counter(long windowStart) {
+            this.windowStart = windowStart;
+        }
+    }
+
+    private final String scope;
+    private final int limit;
+    private final int localShare;
+    private final long windowMillis;
+    private final long staleAfterMillis;
+    private final int maxKeys;
+    private final LongSupplier clockMillis;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private volatile long lastSyncMillis;
+    private volatile boolean degraded;
+
+    public SharedWindowLimiter(String scope, int limit, long windowMillis, int replicas,
+                               long staleAfterMillis, int maxKeys, LongSupplier clockMillis) {
+        this.scope = scope;
+        this.limit = limit;
+        this.localShare = Math.max(1, (limit + Math.max(1, replicas) - 1) / Math.max(1, replicas));
+        this.windowMillis = windowMillis;
+        this.staleAfterMillis = staleAfterMillis;
+        this.maxKeys = maxKeys;
+        this.clockMillis = clockMillis;
+        this.lastSyncMillis = clockMillis.getAsLong();
+    }
+
+    public boolean tryAcquire(String key) {
+        long now = clockMillis.getAsLong();
+        long windowStart = Math.floorDiv(now, windowMillis) * windowMillis;
+
+        Counter c = counters.get(key);
+        if (c == null || c.windowStart != windowStart) {
+            if (c == null && counters.size() >= maxKeys) {
+                return true; // untracked, see class doc
+            }
+            c = counters.compute(key, (k, old) -> old != null && old.windowStart == windowStart ? old : new Counter(windowStart));
+        }
+
+        c.touched = true;
+
+        boolean stale = now - lastSyncMillis > staleAfterMillis;
+        if (stale != degraded) {
+            degraded = stale;
+            log.warn(stale ? "Rate limiter store '{}' stale: enforcing local share ({} of {})"
+                           : "Rate limiter store '{}' back in sync ({} of {})", scope, localShare, limit);
+        }
+        for (;;) {
+            long unsent = c.unsent.get();
+            long used = stale ? c.local.get() : c.clusterTotal + unsent;
+            long budget = stale ? localShare : limit;
+            if (used >= budget) {
+                return false;
+            }
+            if (c.unsent.compareAndSet(unsent, unsent + 1)) {
+                c.local.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /** Pushes the unsent hits, refreshes the cluster totals and drops finished windows. */
+    public void sync(LimiterStore store) {
+        long now = clockMillis.getAsLong();
+        List<LimiterStore.Increment> batch = new ArrayList<>();
+        List<Counter> targets = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+
+        for (Map.Entry<String, Counter> e : counters.entrySet()) {
+            Counter c = e.getValue();
+            long windowEnd = c.windowStart + windowMillis;
+            if (windowEnd <= now) {
+                // hits of a finished window no longer matter anywhere; only drop that very counter,
+                // tryAcquire may have just replaced it with the next window's
+                counters.remove(e.getKey(), c);
+                continue;
+            }
+            long delta = c.unsent.get();
+            if (delta > 0 || c.touched) {
+                c.touched = false;
+                batch.add(new LimiterStore.Increment(counterId(e.getKey(), c.windowStart), delta,
+                        Instant.ofEpochMilli(windowEnd)));
+                targets.add(c);
+                deltas.add(delta);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            long[] totals;
+            try {
+                totals = store.apply(batch);
+            } catch (RuntimeException ex) {
+                log.warn("Rate limiter store '{}' sync failed ({} counters): {}", scope, batch.size(), ex.getMessage());
+                return;
+            }
+            for (int i = 0; i < totals.length; i++) {
+                Counter c = targets.get(i);
+                c.clusterTotal = Math.max(c.clusterTotal, totals[i]);
+                c.unsent.addAndGet(-deltas.get(i));
+            }
+        }
+        lastSyncMillis = now;
+    }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    public int trackedKeys() {
+        return counters.size();
+    }
+
+    private String counterId(String key, long windowStart) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            String hashed = Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 32);
+            return scope + ":" + windowStart / 1000 + ":" + hashed;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.template.service.limiter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Fixed-memory token buckets, one per key, in two parallel {@code long} arrays (no objects per key,
+ * no locks). A key is a 64-bit fingerprint placed by open addressing within {@value #PROBES} slots.
+ * <p>
+ * State word: {@code [40 bits: last refill, ms since start][24 bits: tokens x 1000]}. A bucket holds
+ * {@code capacity} tokens (burst) and refills {@code refillTokens} per {@code refillPeriod} (sustained rate).
+ * With {@code refillTokens == capacity} this is the budget of a sliding window of {@code capacity} events
+ * per period, with a steady rate instead of a cliff at the window end.
+ * <p>
+ * Memory is {@code 16 * slots} bytes whatever the traffic. An idle key (bucket full again) is
+ * indistinguishable from an unknown key, so its slot is reused freely. When the probe range holds only
+ * active keys, the least recently refilled one is evicted and its owner starts again with a full
+ * bucket (counted in {@link #forcedEvictions()}; size the table so this stays at 0).
+ */
+public final class TokenBucketLimiter {
+
+    static final int PROBES = 8;
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long TIME_LIMIT = 1L << (64 - TOKEN_BITS);
+    private static final long ONE = 1000;
+
+    private final AtomicLongArray keys;
+    private final AtomicLongArray states;
+    private final int mask;
+    private final long capacityMilli;
+    private final long refillMilli;
+    private final long periodMillis;
+    private final long fullRefillMillis;
+    private final long seed = ThreadLocalRandom.current().nextLong() | 1;
+    private final LongSupplier clockMillis;
+    private final AtomicLong forcedEvictions = new AtomicLong();
+
+    /** {@code capacity} events per {@code windowMillis}. */
+    public TokenBucketLimiter(int capacity, long windowMillis, int slots) {
+        this(capacity, capacity, windowMillis, slots, monotonicMillis());
+    }
+
+    /** Bursts of up to {@code capacity} events, {@code refillTokens} per {@code periodMillis} sustained. */
+    public TokenBucketLimiter(int capacity, int refillTokens, long periodMillis, int slots) {
+        this(capacity, refillTokens, periodMillis, slots, monotonicMillis());
+    }
+
+    TokenBucketLimiter(int capacity, long windowMillis, int slots, LongSupplier clockMillis) {
+        this(capacity, capacity, windowMillis, slots, clockMillis);
+    }
+
+    TokenBucketLimiter(int capacity, int refillTokens, long periodMillis, int slots, LongSupplier clockMillis) {
+        if (capacity < 1 || capacity * ONE > TOKEN_MASK) {
+            throw new IllegalArgumentException("capacity should be in [1, " + TOKEN_MASK / ONE + "]");
+        }
+        if (refillTokens < 1 || refillTokens * ONE > TOKEN_MASK) {
+            throw new IllegalArgumentException("refill should be in [1, " + TOKEN_MASK / ONE + "]");
+        }
+        if (periodMillis < 1 || periodMillis > Integer.MAX_VALUE * 64L) {
+            throw new IllegalArgumentException("period out of range: " + periodMillis + " ms");
+        }
+        int size = Integer.highestOneBit((Math.max(PROBES, slots) - 1) << 1); // next power of two
+        this.keys = new AtomicLongArray(size);
+        this.states = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.capacityMilli = capacity * ONE;
+        this.refillMilli = refillTokens * ONE;
+        this.periodMillis = periodMillis;
+        this.fullRefillMillis = (capacityMilli * periodMillis + refillMilli - 1) / refillMilli;
+        this.clockMillis = clockMillis;
+    }
+
+    /** Takes one token for {@code key}: 0 when allowed, otherwise the ms to wait for the next token. */
+    public long acquire(String key) {
+        return acquireFingerprint(fingerprint(key));
+    }
+
+    /** Same for a 128-bit binary key (e.g. an IP address), without building a string. */
+    public long acquire(long hi, long lo) {
+        return acquireFingerprint(fingerprint(hi, lo));
+    }
+
+    private long acquireFingerprint(long fp) {
+        long now = clockMillis.getAsLong();
+        int slot = slotFor(fp, now);
+
+        for (;;) {
+            long s = states.get(slot);
+            long last = s >>> TOKEN_BITS;
+            long tokens = refilled(s, now);
+            if (tokens < ONE) {
+                long deficit = ONE - tokens;
+                return Math.max(1, (deficit * periodMillis + refillMilli - 1) / refillMilli);
+            }
+            // time only moves forward by what was converted into tokens, so the remainder is not lost
+            long newLast = tokens == capacityMilli || s == 0
+                    ? now
+                    : last + (tokens - (s & TOKEN_MASK)) * periodMillis / refillMilli;
+            if (states.compareAndSet(slot, s, pack(newLast, tokens - ONE))) {
+                return 0;
+            }
+        }
+    }
+
+    /** Frees the slots of idle keys (bucket full again). Optional: idle slots are also reused on demand. */
+    public int evictIdle() {
+        long now = clockMillis.getAsLong();
+        int freed = 0;
+        for (int i = 0; i <= mask; i++) {
+            long k = keys.get(i);
+            long s = states.get(i);
+            if (k != 0 && isIdle(s, now) && states.compareAndSet(i, s, 0) && keys.compareAndSet(i, k, 0)) {
+                freed++;
+            }
+        }
+        return freed;
+    }
+
+    /** Slots currently holding a key. */
+    public int size() {
+        int n = 0;
+        for (int i = 0; i <= mask; i++) {
+            if (keys.get(i) != 0) n++;
+        }
+        return n;
+    }
+
+    public int slots() {
+        return mask + 1;
+    }
+
+    public long forcedEvictions() {
+        return forcedEvictions.get();
+    }
+
+    // Slot of fp: existing one, else a free/idle one (claimed), else the stalest one (forced eviction)
+    private int slotFor(long fp, long now) {
+        int home = (int) (fp ^ (fp >>> 32)) & mask;
+        for (;;) {
+            int reusable = -1;
+            int stalest = -1;
+            long stalestTime = Long.MAX_VALUE;
+            for (int p = 0; p < PROBES; p++) {
+                int i = (home + p) & mask;
+                long k = keys.get(i);
+                if (k == fp) {
+                    return i;
+                }
+                long s = states.get(i);
+                if (reusable < 0 && (k == 0 || isIdle(s, now))) {
+                    reusable = i;
+                }
+                long last = s >>> TOKEN_BITS;
+                if (last < stalestTime) {
+                    stalestTime = last;
+                    stalest = i;
+                }
+            }
+            if (reusable >= 0) {
+                long k = keys.get(reusable);
+                // an idle bucket is full, so the new key inherits a full bucket: no state reset needed
+                if (keys.compareAndSet(reusable, k, fp)) {
+                    return reusable;
+                }
+                continue; // lost the race for this slot, rescan
+            }
+            long k = keys.get(stalest);
+            if (keys.compareAndSet(stalest, k, fp)) {
+                states.set(stalest, 0);
+                forcedEvictions.incrementAndGet();
+                return stalest;
+            }
+        }
+    }
+
+    private long refilled(long state, long now) {
+        if (state == 0) {
+            return capacityMilli;
+        }
+        long last = state >>> TOKEN_BITS;
+        long tokens = state & TOKEN_MASK;
+        long elapsed = Math.min(now - last, fullRefillMillis); // enough to refill everything
+        if (elapsed <= 0) {
+            return tokens;
+        }
+        return Math.min(capacityMilli, tokens + elapsed * refillMilli / periodMillis);
+    }
+
+    private boolean isIdle(long state, long now) {
+        return refilled(state, now) == capacityMilli;
+    }
+
+    private static long pack(long timeMillis, long tokensMilli) {
+        return (timeMillis % TIME_LIMIT) << TOKEN_BITS | tokensMilli;
+    }
+
+    // Seeded per instance so keys colliding on purpose in one process don't in the next
+    private long fingerprint(String key) {
+        long h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private long fingerprint(long hi, long lo) {
+        return mix(mix(seed ^ hi) + lo);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    // ms since construction, from the monotonic clock (fits the 40-bit field for ~34 years)
+    private static LongSupplier monotonicMillis() {
+        long origin = System.nanoTime();
+        return () -> (System.nanoTime() - origin) / 1_000_000 + 1;
+    }
+}
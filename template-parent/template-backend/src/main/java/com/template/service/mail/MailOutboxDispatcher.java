@@ -0,0 +1,293 @@
+package com.template.service.mail;
+
+import com.template.entity.MailOutbox;
+import com.template.repository.MailOutboxRepository;
+import com.template.service.MailService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Delivers the mail outbox on virtual threads.
+//A single poller picks due rows (woken up as soon as an enqueue commits, otherwise every poll interval for
+//retries and rows left over by a restart), claims them with a conditional update and hands them to virtual
+//threads in chunks of send-batch-size, each chunk going out over one pooled SMTP connection; a semaphore caps
+//the number of concurrent workers. Failed sends are retried with
+//exponential backoff and jitter, and parked as DEAD after max-attempts or once their link has expired.
+//Delivery is at least once: a crash between the SMTP send and the SENT update resends after the lease.
+@Service
+public class MailOutboxDispatcher implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(MailOutboxDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final MailOutboxRepository repo;
+    private final MailService mailService;
+    private final PooledMailTransport transport;
+    private final OutboxPayloadCipher payloads;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int sendBatchSize;
+    private final long pollIntervalMs;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final long backoffInitialMs;
+    private final long backoffMaxMs;
+
+    private final Semaphore permits;
+    private final Semaphore wakeups = new Semaphore(0);
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("mail-outbox-", 0).factory());
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter dead;
+    private final Timer delivery;
+
+    private volatile boolean running;
+    private Thread poller;
+
+    public MailOutboxDispatcher(MailOutboxRepository repo,
+                                MailService mailService,
+                                PooledMailTransport transport,
+                                OutboxPayloadCipher payloads,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.mail.outbox.enabled:true}") boolean enabled,
+                                @Value("${app.mail.outbox.workers:4}") int workers,
+                                @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+                                @Value("${app.mail.outbox.send-batch-size:10}") int sendBatchSize,
+                                @Value("${app.mail.outbox.poll-interval-ms:5000}") long pollIntervalMs,
+                                @Value("${app.mail.outbox.lease-seconds:120}") long leaseSeconds,
+                                @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+                                @Value("${app.mail.outbox.backoff-initial-ms:5000}") long backoffInitialMs,
+                                @Value("${app.mail.outbox.backoff-max-ms:1800000}") long backoffMaxMs) {
+        this.repo = repo;
+        this.mailService = mailService;
+        this.transport = transport;
+        this.payloads = payloads;
+        this.enabled = enabled;
+        this.permits = new Semaphore(Math.max(1, workers));
+        this.batchSize = Math.max(1, batchSize);
+        this.sendBatchSize = Math.max(1, sendBatchSize);
+        this.pollIntervalMs = Math.max(10, pollIntervalMs);
+        this.lease = Duration.ofSeconds(Math.max(1, leaseSeconds));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffInitialMs = Math.max(1, backoffInitialMs);
+        this.backoffMaxMs = Math.max(this.backoffInitialMs, backoffMaxMs);
+
+        this.sent = outcome(meterRegistry, "sent");
+        this.retried = outcome(meterRegistry, "retry");
+        this.dead = outcome(meterRegistry, "dead");
+        this.delivery = Timer.builder("mail.outbox.delivery")
+                .description("Time to build and send one chunk of outbox mails")
+                .register(meterRegistry);
+        Gauge.builder("mail.outbox.in-flight", inFlight, AtomicInteger::get)
+                .description("Outbox mails being sent right now")
+                .register(meterRegistry);
+    }
+
+    private static Counter outcome(MeterRegistry registry, String outcome) {
+        return Counter.builder("mail.outbox.deliveries")
+                .description("Outbox delivery attempts by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        poller = Thread.ofVirtual().name("mail-outbox-poller").start(this::pollLoop);
+    }
+
+    /** Skips the poll interval for mails queued by a transaction that just committed. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQueued(MailOutboxService.MailQueued event) {
+        wakeups.release();
+    }
+
+    private void pollLoop() {
+        try {
+            while (running) {
+                int due;
+                try {
+                    due = dispatchDue();
+                } catch (RuntimeException e) {
+                    log.warn("Mail outbox poll failed: {}", e.getMessage());
+                    due = 0;
+                }
+                if (due < batchSize) {
+                    // a full batch means more rows are probably due: go again right away
+                    wakeups.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    wakeups.drainPermits();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Claims the due rows and starts one worker per chunk (blocks while all permits are taken). */
+    int dispatchDue() throws InterruptedException {
+        List<Long> ids = repo.findDueIds(MailOutbox.Status.PENDING, Instant.now(), PageRequest.of(0, batchSize));
+        for (int from = 0; from < ids.size(); from += sendBatchSize) {
+            permits.acquire();
+            boolean started = false;
+            try {
+                List<Long> chunk = claim(ids.subList(from, Math.min(from + sendBatchSize, ids.size())));
+                if (!chunk.isEmpty()) {
+                    workers.execute(() -> work(chunk));
+                    started = true;
+                }
+            } finally {
+                if (!started) {
+                    permits.release(); // taken by another instance meanwhile
+                }
+            }
+        }
+        return ids.size();
+    }
+
+    private List<Long> claim(List<Long> ids) {
+        List<Long> claimed = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Instant now = Instant.now();
+            if (repo.claim(id, MailOutbox.Status.PENDING, now, now.plus(lease)) == 1) {
+                claimed.add(id);
+            }
+        }
+        return claimed;
+    }
+
+    private void work(List<Long> ids) {
+        inFlight.addAndGet(ids.size());
+        try {
+            deliver(ids);
+        } catch (RuntimeException e) {
+            // outcome not recorded: the rows are due again when the lease ends
+            log.warn("Mail outbox update failed for mails {}: {}", ids, e.getMessage());
+        } finally {
+            inFlight.addAndGet(-ids.size());
+            permits.release();
+        }
+    }
+
+    /** One attempt on rows already claimed by this instance, sent over one pooled connection. */
+    void deliver(List<Long> ids) {
+        List<MailOutbox> mails = new ArrayList<>(ids.size());
+        List<MimeMessage> messages = new ArrayList<>(ids.size());
+        for (MailOutbox mail : repo.findAllById(ids)) {
+            if (mail.getStatus() != MailOutbox.Status.PENDING) {
+                continue;
+            }
+            if (mail.isExpired(Instant.now())) {
+                repo.markDead(mail.getId(), MailOutbox.Status.DEAD, "expired before delivery");
+                dead.increment();
+                log.warn("Mail {} ({}) dropped: expired before delivery", mail.getId(), mail.getKind());
+                continue;
+            }
+            try {
+                messages.add(message(mail));
+                mails.add(mail);
+            } catch (RuntimeException e) {
+                recordFailure(mail, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start();
+        List<MailException> errors = transport.send(messages);
+        sample.stop(delivery);
+        for (int i = 0; i < mails.size(); i++) {
+            MailOutbox mail = mails.get(i);
+            if (errors.get(i) == null) {
+                repo.markSent(mail.getId(), MailOutbox.Status.SENT, Instant.now());
+                sent.increment();
+            } else {
+                recordFailure(mail, errors.get(i));
+            }
+        }
+    }
+
+    private MimeMessage message(MailOutbox mail) {
+        Locale locale = Locale.forLanguageTag(mail.getLocale());
+        MailOutbox.Kind kind = mail.getKind();
+        return mailService.message(mail.getRecipient(), kind.template(), locale,
+                Map.of(kind.payloadVariable(), payloads.open(mail.getPayload())));
+    }
+
+    private void recordFailure(MailOutbox mail, RuntimeException e) {
+        String error = truncate(e.getClass().getSimpleName() + ": " + e.getMessage());
+        int attempts = mail.getAttempts(); // includes this one (counted by the claim)
+        Instant now = Instant.now();
+        if (attempts >= maxAttempts) {
+            repo.markDead(mail.getId(), MailOutbox.Status.DEAD, error);
+            dead.increment();
+            log.error("Mail {} ({}) to {} given up after {} attempts: {}",
+                    mail.getId(), mail.getKind(), mail.getRecipient(), attempts, error);
+        } else {
+            Instant next = now.plusMillis(backoffMillis(attempts));
+            repo.markFailed(mail.getId(), MailOutbox.Status.PENDING, next, error);
+            retried.increment();
+            log.warn("Mail {} ({}) attempt {} failed, retry at {}: {}", mail.getId(), mail.getKind(), attempts, next, error);
+        }
+    }
+
+    // initial * 2^(attempt-1) capped at max, half of it randomized so a failed burst does not retry in lockstep
+    long backoffMillis(int attempt) {
+        long exp = backoffInitialMs << Math.min(attempt - 1, 30);
+        long capped = (exp <= 0 || exp > backoffMaxMs) ? backoffMaxMs : exp;
+        long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(capped - half + 1);
+    }
+
+    private static String truncate(String s) {
+        return s.length() <= MAX_ERROR_LENGTH ? s : s.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        Thread p;
+        synchronized (this) {
+            p = poller;
+        }
+        if (p != null) {
+            p.interrupt();
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow(); // unfinished rows come back after their lease
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.template.service.mail;
+
+import com.template.entity.MailOutbox;
+import com.template.repository.MailOutboxRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Locale;
+
+//Queues mails in the caller's transaction: the mail exists if and only if the business change committed.
+//Delivery is left to MailOutboxDispatcher, woken up right after the commit.
+@Service
+public class MailOutboxService {
+
+    /** Published on enqueue; listeners run after the commit of the enqueuing transaction. */
+    public record MailQueued(Long id) {}
+
+    private final MailOutboxRepository repo;
+    private final ApplicationEventPublisher events;
+    private final OutboxPayloadCipher payloads;
+
+    public MailOutboxService(MailOutboxRepository repo, ApplicationEventPublisher events, OutboxPayloadCipher payloads) {
+        this.repo = repo;
+        this.events = events;
+        this.payloads = payloads;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public MailOutbox enqueue(MailOutbox.Kind kind, String recipient, Locale locale, String payload, Instant expiresAt) {
+        MailOutbox mail = repo.save(new MailOutbox(kind, recipient, locale.toLanguageTag(), payloads.seal(payload),
+                Instant.now(), expiresAt));
+        events.publishEvent(new MailQueued(mail.getId()));
+        return mail;
+    }
+}
@@ -0,0 +1,168 @@
+package com.template.service.mail;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Mail templates compiled once per locale.
+//<location><name>.txt (required) and <name>.html (optional) hold the layout: {{msg:key}} is replaced at compile
+//time by the message of the locale (HTML-escaped in .html), {{var}} is a slot filled at render time; the subject
+//is the message mail.<name>.subject. A compiled template is an array of literal segments around the slots,
+//so rendering only appends the variables into a buffer of the right size.
+//With cache-seconds >= 0 templates are recompiled that long after their last compilation (bundle or file edits).
+@Component
+public class MailTemplateEngine {
+
+    public record Rendered(String subject, String text, String html) {}
+
+    /** Literal segments around variable slots: literals[0] vars[0] literals[1] ... vars[n-1] literals[n]. */
+    static final class Compiled {
+        private final String[] literals;
+        private final String[] vars;
+        private final boolean html;
+        private final int literalLength;
+
+        Compiled(String[] literals, String[] vars, boolean html) {
+            this.literals = literals;
+            this.vars = vars;
+            this.html = html;
+            int len = 0;
+            for (String l : literals) {
+                len += l.length();
+            }
+            this.literalLength = len;
+        }
+
+        String render(Map<String, String> values) {
+            String[] filled = new String[vars.length];
+            int size = literalLength;
+            for (int i = 0; i < vars.length; i++) {
+                String v = values.get(vars[i]);
+                if (v == null) {
+                    throw new IllegalArgumentException("Missing mail template variable: " + vars[i]);
+                }
+                filled[i] = html ? HtmlUtils.htmlEscape(v, "UTF-8") : v;
+                size += filled[i].length();
+            }
+            StringBuilder out = new StringBuilder(size);
+            out.append(literals[0]);
+            for (int i = 0; i < filled.length; i++) {
+                out.append(filled[i]).append(literals[i + 1]);
+            }
+            return out.toString();
+        }
+    }
+
+    private record Key(String name, Locale locale) {}
+
+    private record Entry(Compiled subject, Compiled text, Compiled html, long compiledAtMillis) {}
+
+    private final MessageSource messages;
+    private final ResourceLoader resources;
+    private final String location;
+    private final long cacheMillis;
+    private final ConcurrentHashMap<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    public MailTemplateEngine(MessageSource messages,
+                              ResourceLoader resources,
+                              @Value("${app.mail.templates.location:classpath:mail/}") String location,
+                              @Value("${app.i18n.cache-seconds:-1}") long cacheSeconds) {
+        this.messages = messages;
+        this.resources = resources;
+        this.location = location.endsWith("/") ? location : location + "/";
+        this.cacheMillis = cacheSeconds < 0 ? -1 : cacheSeconds * 1000;
+    }
+
+    public Rendered render(String name, Locale locale, Map<String, String> values) {
+        Entry e = entry(name, locale);
+        return new Rendered(
+                e.subject().render(values),
+                e.text().render(values),
+                e.html() != null ? e.html().render(values) : null);
+    }
+
+    /** Drops every compiled template (next render recompiles). */
+    public void clear() {
+        cache.clear();
+    }
+
+    private Entry entry(String name, Locale locale) {
+        Key key = new Key(name, locale);
+        Entry e = cache.get(key);
+        if (e == null) {
+            return cache.computeIfAbsent(key, k -> compile(name, locale));
+        }
+        if (cacheMillis >= 0 && System.currentTimeMillis() - e.compiledAtMillis() >= cacheMillis) {
+            // a concurrent render may compile it too: same result, last one wins
+            e = compile(name, locale);
+            cache.put(key, e);
+        }
+        return e;
+    }
+
+    private Entry compile(String name, Locale locale) {
+        String html = read(name + ".html", false);
+        return new Entry(
+                compile(messages.getMessage("mail." + name + ".subject", null, locale), locale, false),
+                compile(read(name + ".txt", true), locale, false),
+                html != null ? compile(html, locale, true) : null,
+                System.currentTimeMillis());
+    }
+
+    private Compiled compile(String source, Locale locale, boolean html) {
+        List<String> literals = new ArrayList<>();
+        List<String> vars = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (close < 0) {
+                literal.append(source, pos, source.length());
+                break;
+            }
+            literal.append(source, pos, open);
+            String token = source.substring(open + 2, close).trim();
+            if (token.startsWith("msg:")) {
+                String text = messages.getMessage(token.substring(4).trim(), null, locale);
+                literal.append(html ? HtmlUtils.htmlEscape(text, "UTF-8") : text);
+            } else {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                vars.add(token);
+            }
+            pos = close + 2;
+        }
+        literals.add(literal.toString());
+        return new Compiled(literals.toArray(String[]::new), vars.toArray(String[]::new), html);
+    }
+
+    private String read(String file, boolean required) {
+        Resource resource = resources.getResource(location + file);
+        if (!resource.exists()) {
+            if (required) {
+                throw new IllegalStateException("Mail template not found: " + location + file);
+            }
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read mail template " + location + file, e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.template.service.mail;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Encrypts mail_outbox payloads (reset links) with AES-256-GCM, so a pending mail does not keep a usable
+ * secret at rest while it waits for its retries. Stored form: {@code v1.} + base64url(IV | ciphertext | tag).
+ * Payloads without the prefix (queued before encryption) are returned as they are.
+ */
+@Component
+public class OutboxPayloadCipher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPayloadCipher.class);
+
+    private static final String PREFIX = "v1.";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    public OutboxPayloadCipher(@Value("${app.mail.outbox.payload-key:}") String secret) {
+        this.key = new SecretKeySpec(keyBytes(secret), "AES");
+    }
+
+    private static byte[] keyBytes(String secret) {
+        if (secret == null || secret.isBlank()) {
+            // Fine for a single dev instance only: mails still pending at restart can no longer be sent
+            log.warn("app.mail.outbox.payload-key missed: generating an ephemeral outbox key");
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] raw = secret.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < 32) {
+            throw new IllegalArgumentException("app.mail.outbox.payload-key should do minimum 32 bytes (256 bits)");
+        }
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(raw);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public String seal(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        byte[] iv = new byte[IV];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] sealed = cipher.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+            byte[] out = ByteBuffer.allocate(IV + sealed.length).put(iv).put(sealed).array();
+            return PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(out);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Outbox payload encryption failed", e);
+        }
+    }
+
+    /** @throws IllegalStateException when the payload was sealed with another key or altered */
+    public String open(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            return stored;
+        }
+        try {
+            byte[] in = Base64.getUrlDecoder().decode(stored.substring(PREFIX.length()));
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, in, 0, IV));
+            return new String(cipher.doFinal(in, IV, in.length - IV), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Outbox payload cannot be decrypted (app.mail.outbox.payload-key changed?)", e);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.template.service.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Keeps a few authenticated SMTP connections open and reuses them.
+//JavaMailSenderImpl connects, does STARTTLS + AUTH and quits for every send(); here a connection is
+//borrowed, sends any number of messages, and goes back to the pool. Idle connections are checked with a
+//NOOP before reuse, recycled after max-messages or max-lifetime, and closed once idle for too long.
+//Session, host and credentials are the ones of the spring.mail.* sender.
+@Component
+public class PooledMailTransport implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledMailTransport.class);
+
+    /** Live figures of one open connection. */
+    public record ConnectionStats(long id, long messages, long ageMillis, double messagesPerSecond) {}
+
+    private final class Connection {
+        final long id = ids.incrementAndGet();
+        final Transport transport;
+        final long openedAt = System.nanoTime();
+        // written by the borrowing thread only, read by stats()
+        volatile long lastUsed = openedAt;
+        volatile long messages;
+
+        Connection(Transport transport) {
+            this.transport = transport;
+        }
+
+        long ageMillis(long now) {
+            return TimeUnit.NANOSECONDS.toMillis(now - openedAt);
+        }
+
+        ConnectionStats stats(long now) {
+            long age = ageMillis(now);
+            return new ConnectionStats(id, messages, age, age == 0 ? 0 : messages * 1000.0 / age);
+        }
+    }
+
+    private final Session session;
+    private final String protocol;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final long borrowTimeoutMs;
+    private final long validateAfterIdleNanos;
+    private final long maxIdleNanos;
+    private final long maxLifetimeNanos;
+    private final int maxMessagesPerConnection;
+
+    private final AtomicLong ids = new AtomicLong();
+    // borrowed connections; nothing is opened without a permit, so open <= max-connections
+    private final Semaphore slots;
+    // LIFO: the hottest connection is reused first and the surplus ages out
+    private final LinkedBlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final Set<Connection> open = ConcurrentHashMap.newKeySet();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter opened;
+    private final Timer sendTimer;
+    private final DistributionSummary messagesPerConnection;
+    private final DistributionSummary throughput;
+
+    public PooledMailTransport(JavaMailSenderImpl mailSender,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.mail.pool.max-connections:4}") int maxConnections,
+                               @Value("${app.mail.pool.borrow-timeout-ms:10000}") long borrowTimeoutMs,
+                               @Value("${app.mail.pool.validate-after-idle-ms:2000}") long validateAfterIdleMs,
+                               @Value("${app.mail.pool.max-idle-ms:60000}") long maxIdleMs,
+                               @Value("${app.mail.pool.max-lifetime-ms:600000}") long maxLifetimeMs,
+                               @Value("${app.mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection) {
+        this.session = mailSender.getSession();
+        this.protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp";
+        this.host = mailSender.getHost();
+        this.port = mailSender.getPort();
+        this.username = blankToNull(mailSender.getUsername());
+        this.password = username != null ? mailSender.getPassword() : null;
+        this.slots = new Semaphore(Math.max(1, maxConnections));
+        this.borrowTimeoutMs = Math.max(0, borrowTimeoutMs);
+        this.validateAfterIdleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, validateAfterIdleMs));
+        this.maxIdleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, maxIdleMs));
+        this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, maxLifetimeMs));
+        this.maxMessagesPerConnection = Math.max(1, maxMessagesPerConnection);
+
+        this.meterRegistry = meterRegistry;
+        this.opened = Counter.builder("mail.smtp.connections.opened")
+                .description("SMTP connections opened (connect + STARTTLS + AUTH)")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("mail.smtp.send")
+                .description("Time to send one message on an open connection")
+                .register(meterRegistry);
+        this.messagesPerConnection = DistributionSummary.builder("mail.smtp.connection.messages")
+                .description("Messages sent by a connection over its life")
+                .register(meterRegistry);
+        this.throughput = DistributionSummary.builder("mail.smtp.connection.throughput")
+                .description("Messages per second of a connection over its life")
+                .baseUnit("messages/s")
+                .register(meterRegistry);
+        Gauge.builder("mail.smtp.connections.open", open, Set::size)
+                .description("Open SMTP connections")
+                .register(meterRegistry);
+        Gauge.builder("mail.smtp.connections.idle", idle, LinkedBlockingDeque::size)
+                .description("Open SMTP connections waiting in the pool")
+                .register(meterRegistry);
+    }
+
+    /** Sends one message; failures are thrown. */
+    public void send(MimeMessage message) {
+        MailException error = send(List.of(message)).get(0);
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Sends the messages over as few connections as possible, in order.
+     * Returns one entry per message: null when sent, the failure otherwise (a refused recipient fails its
+     * message only; a broken connection is dropped and the rest goes through a fresh one).
+     */
+    public List<MailException> send(List<MimeMessage> messages) {
+        MailException[] errors = new MailException[messages.size()];
+        Connection c = null;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                if (c != null && c.messages >= maxMessagesPerConnection) {
+                    release(c); // recycled, the rest goes through another connection
+                    c = null;
+                }
+                if (c == null) {
+                    try {
+                        c = borrow();
+                    } catch (MailException e) {
+                        Arrays.fill(errors, i, errors.length, e);
+                        break;
+                    }
+                }
+                MimeMessage message = messages.get(i);
+                try {
+                    sendOn(c, message);
+                } catch (SendFailedException e) {
+                    errors[i] = new MailSendException("Recipient refused", e);
+                } catch (MessagingException | RuntimeException e) {
+                    errors[i] = new MailSendException("SMTP send failed on connection " + c.id, e);
+                    discard(c, "broken");
+                    slots.release();
+                    c = null;
+                }
+            }
+        } finally {
+            if (c != null) {
+                release(c);
+            }
+        }
+        return Arrays.asList(errors);
+    }
+
+    private void sendOn(Connection c, MimeMessage message) throws MessagingException {
+        long start = System.nanoTime();
+        message.saveChanges();
+        c.transport.sendMessage(message, message.getAllRecipients());
+        long now = System.nanoTime();
+        sendTimer.record(now - start, TimeUnit.NANOSECONDS);
+        c.messages++;
+        c.lastUsed = now;
+    }
+
+    private Connection borrow() {
+        try {
+            if (!slots.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new MailSendException("No SMTP connection available within " + borrowTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while waiting for an SMTP connection");
+        }
+        try {
+            Connection c;
+            while ((c = idle.pollFirst()) != null) {
+                if (usable(c)) {
+                    return c;
+                }
+            }
+            return connect();
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    // closes (and returns false for) a connection that should not be reused
+    private boolean usable(Connection c) {
+        long now = System.nanoTime();
+        if (c.messages >= maxMessagesPerConnection || now - c.openedAt >= maxLifetimeNanos) {
+            discard(c, "recycled");
+            return false;
+        }
+        // SMTPTransport.isConnected() sends a NOOP and closes the transport when it goes unanswered
+        if (now - c.lastUsed >= validateAfterIdleNanos && !c.transport.isConnected()) {
+            discard(c, "stale");
+            return false;
+        }
+        return true;
+    }
+
+    private Connection connect() {
+        try {
+            Transport transport = session.getTransport(protocol);
+            transport.connect(host, port, username, password);
+            Connection c = new Connection(transport);
+            open.add(c);
+            opened.increment();
+            log.debug("SMTP connection {} opened to {}:{}", c.id, host, port);
+            return c;
+        } catch (AuthenticationFailedException e) {
+            throw new MailAuthenticationException(e);
+        } catch (MessagingException e) {
+            throw new MailSendException("Cannot connect to SMTP server " + host + ":" + port, e);
+        }
+    }
+
+    private void release(Connection c) {
+        try {
+            if (c.messages >= maxMessagesPerConnection) {
+                discard(c, "recycled");
+            } else {
+                idle.offerFirst(c);
+            }
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void discard(Connection c, String reason) {
+        if (!open.remove(c)) {
+            return;
+        }
+        long now = System.nanoTime();
+        ConnectionStats stats = c.stats(now);
+        messagesPerConnection.record(stats.messages());
+        throughput.record(stats.messagesPerSecond());
+        meterRegistry.counter("mail.smtp.connections.closed", "reason", reason).increment();
+        try {
+            c.transport.close();
+        } catch (MessagingException e) {
+            log.debug("SMTP connection {} close failed: {}", c.id, e.getMessage());
+        }
+        log.debug("SMTP connection {} closed ({}): {} message(s) in {} ms", c.id, reason, stats.messages(), stats.ageMillis());
+    }
+
+    /** Closes connections idle for longer than max-idle (oldest first, the deque tail). */
+    @Scheduled(fixedDelayString = "${app.mail.pool.evict-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        Connection c;
+        while ((c = idle.peekLast()) != null && now - c.lastUsed >= maxIdleNanos) {
+            if (idle.removeLastOccurrence(c)) {
+                discard(c, "idle");
+            }
+        }
+    }
+
+    /** Open connections with their message count and throughput so far. */
+    public List<ConnectionStats> stats() {
+        long now = System.nanoTime();
+        List<ConnectionStats> out = new ArrayList<>();
+        for (Connection c : open) {
+            out.add(c.stats(now));
+        }
+        return out;
+    }
+
+    @Override
+    public void destroy() {
+        Connection c;
+        while ((c = idle.pollFirst()) != null) {
+            discard(c, "shutdown");
+        }
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+}
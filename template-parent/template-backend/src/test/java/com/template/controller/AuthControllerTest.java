@@ -0,0 +1,80 @@
+package com.template.controller;
+
+import com.template.entity.User;
+import com.template.security.ClientIpResolver;
+import com.template.security.jwt.JwtService;
+import com.template.security.jwt.TokenDenylist;
+import com.template.security.jwt.VerifiedTokenCache;
+import com.template.service.AuthService;
+import com.template.service.ForgotPasswordService;
+import com.template.service.RefreshTokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuthControllerTest {
+
+    private final JwtService jwt = mock(JwtService.class);
+    private final RefreshTokenService refreshTokens = mock(RefreshTokenService.class);
+    private final AuthController controller = new AuthController(mock(AuthService.class), jwt,
+            mock(ForgotPasswordService.class), mock(VerifiedTokenCache.class), mock(TokenDenylist.class),
+            refreshTokens, mock(ClientIpResolver.class), cors());
+
+    private static UrlBasedCorsConfigurationSource cors() {
+        CorsConfiguration cfg = new CorsConfiguration();
+        cfg.setAllowedOriginPatterns(List.of("http://localhost:8081"));
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", cfg);
+        return source;
+    }
+
+    private static MockHttpServletRequest refreshRequest(String origin) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/refresh");
+        if (origin != null) {
+            request.addHeader(HttpHeaders.ORIGIN, origin);
+        }
+        return request;
+    }
+
+    private void stubRotation() {
+        User user = new User();
+        user.setEmail("john@example.com");
+        when(jwt.generateToken(anyString(), anyLong(), anyMap())).thenReturn("jwt");
+        when(refreshTokens.rotate("tok")).thenReturn(new RefreshTokenService.Rotation(user,
+                new RefreshTokenService.IssuedRefreshToken("next", Instant.now().plusSeconds(600))));
+    }
+
+    @Test
+    void cross_site_refresh_is_refused_before_rotating() {
+        var e = assertThrows(ResponseStatusException.class,
+                () -> controller.refresh("tok", refreshRequest("https://evil.example")));
+
+        assertEquals(HttpStatus.FORBIDDEN, e.getStatusCode());
+        verifyNoInteractions(refreshTokens);
+    }
+
+    @Test
+    void allowed_origin_and_server_calls_rotate_with_a_strict_cookie() {
+        stubRotation();
+
+        for (String origin : new String[] {"http://localhost:8081", null}) {
+            var response = controller.refresh("tok", refreshRequest(origin));
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertTrue(response.getHeaders().get(HttpHeaders.SET_COOKIE).stream()
+                    .anyMatch(c -> c.startsWith("refresh_token=next") && c.contains("SameSite=Strict")));
+        }
+        verify(refreshTokens, times(2)).rotate("tok");
+    }
+}
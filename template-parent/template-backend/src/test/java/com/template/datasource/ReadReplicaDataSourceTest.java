@@ -0,0 +1,104 @@
+package com.template.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two in-memory H2 databases stand for the primary and one replica; each knows its own name.
+class ReadReplicaDataSourceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private ReadReplicaDataSource replicas;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        primary = pool("primary");
+        replica = pool("replica");
+        new JdbcTemplate(replica).execute("create table repl_lag (seconds int)");
+        new JdbcTemplate(replica).execute("insert into repl_lag values (0)");
+
+        replicas = new ReadReplicaDataSource(primary,
+                List.of(new ReadReplicaDataSource.Replica("r1", replica)),
+                Duration.ofSeconds(10), "select seconds from repl_lag", registry);
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+        routing.setReadOnlyDataSource(replicas);
+
+        jdbc = new JdbcTemplate(routing);
+        var tm = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(tm);
+        readOnly = new TransactionTemplate(tm);
+        readOnly.setReadOnly(true);
+        replicas.checkReplicas();
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicas.destroy();
+        primary.close();
+    }
+
+    @Test
+    void read_only_transactions_use_the_replica_and_writes_the_primary() {
+        assertEquals("replica", readOnly.execute(s -> node()));
+        assertEquals("primary", readWrite.execute(s -> node()));
+        assertEquals(1, registry.get("db.routing.reads").tag("target", "r1").counter().count());
+        assertEquals(1, registry.get("db.replica.up").tag("replica", "r1").gauge().value());
+    }
+
+    @Test
+    void lagging_replica_is_skipped_until_it_catches_up() {
+        new JdbcTemplate(replica).update("update repl_lag set seconds = 60");
+        replicas.checkReplicas();
+        assertEquals("primary", readOnly.execute(s -> node()));
+        assertEquals(60, registry.get("db.replica.lag").tag("replica", "r1").gauge().value());
+
+        new JdbcTemplate(replica).update("update repl_lag set seconds = 1");
+        replicas.checkReplicas();
+        assertEquals("replica", readOnly.execute(s -> node()));
+    }
+
+    @Test
+    void unreachable_replica_falls_back_to_the_primary() {
+        replica.close();
+        assertEquals("primary", readOnly.execute(s -> node()));
+        assertEquals(0, registry.get("db.replica.up").tag("replica", "r1").gauge().value());
+        assertEquals(1, registry.get("db.routing.reads").tag("target", "primary").counter().count());
+    }
+
+    @Test
+    void per_call_credentials_are_refused_with_an_sql_exception() {
+        assertThrows(SQLFeatureNotSupportedException.class, () -> replicas.getConnection("sa", ""));
+    }
+
+    private String node() {
+        return jdbc.queryForObject("select name from node", String.class);
+    }
+
+    private static HikariDataSource pool(String name) {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName(name);
+        ds.setJdbcUrl("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        ds.setMaximumPoolSize(2);
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("create table node (name varchar(20))");
+        jdbc.update("insert into node values (?)", name);
+        return ds;
+    }
+}
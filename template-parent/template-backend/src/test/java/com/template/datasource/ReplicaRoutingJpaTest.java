@@ -0,0 +1,180 @@
+package com.template.datasource;
+
+import com.template.entity.MailOutbox;
+import com.template.entity.User;
+import com.template.repository.MailOutboxRepository;
+import com.template.repository.PasswordResetTokenRepository;
+import com.template.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaSystemException;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// JPA on top of the routing of DataSourceConfig. The replica is the same H2 database reached by a select-only
+// user, so a write routed to it fails the way it does on a super_read_only MySQL replica.
+@SpringJUnitConfig
+class ReplicaRoutingJpaTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    static class Config {
+
+        private static final String DB = "jdbc:h2:mem:routing-" + System.nanoTime();
+
+        @Bean
+        SimpleMeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        HikariDataSource primary() {
+            HikariDataSource ds = pool("primary", DB + ";DB_CLOSE_DELAY=-1", "sa");
+            new JdbcTemplate(ds).execute("create user if not exists reader password 'r'");
+            new JdbcTemplate(ds).execute("grant select on schema public to reader");
+            return ds;
+        }
+
+        @Bean
+        ReadReplicaDataSource replicas(HikariDataSource primary, SimpleMeterRegistry meterRegistry) {
+            HikariDataSource replica = pool("replica", DB, "reader");
+            replica.setPassword("r");
+            return new ReadReplicaDataSource(primary, List.of(new ReadReplicaDataSource.Replica("r1", replica)),
+                    Duration.ofSeconds(10), "", meterRegistry);
+        }
+
+        @Bean
+        DataSource dataSource(HikariDataSource primary, ReadReplicaDataSource replicas) {
+            LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+            proxy.setReadOnlyDataSource(replicas);
+            return proxy;
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            var emf = new LocalContainerEntityManagerFactoryBean();
+            emf.setDataSource(dataSource);
+            emf.setPackagesToScan("com.template.entity");
+            emf.setJpaVendorAdapter(new HibernateJpaVendorAdapter()); // connection handling used by Spring Boot
+            emf.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+            return emf;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
+            return new JpaTransactionManager(emf);
+        }
+
+        private static HikariDataSource pool(String name, String url, String user) {
+            HikariDataSource ds = new HikariDataSource();
+            ds.setPoolName(name);
+            ds.setJdbcUrl(url);
+            ds.setUsername(user);
+            ds.setMaximumPoolSize(2);
+            return ds;
+        }
+    }
+
+    @Autowired
+    private UserRepository users;
+    @Autowired
+    private MailOutboxRepository outbox;
+    @Autowired
+    private PasswordResetTokenRepository resetTokens;
+    @Autowired
+    private PlatformTransactionManager tm;
+    @Autowired
+    private EntityManagerFactory emf;
+    @Autowired
+    private SimpleMeterRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.hasResource(emf)) {
+            EntityManagerFactoryUtils.closeEntityManager(
+                    ((EntityManagerHolder) TransactionSynchronizationManager.unbindResource(emf)).getEntityManager());
+        }
+        new TransactionTemplate(tm).executeWithoutResult(s -> users.deleteAll());
+    }
+
+    private static User user(String email) {
+        User u = new User();
+        u.setEmail(email);
+        u.setPassword("{bcrypt}x");
+        u.setFirstName("John");
+        u.setLastName("Doe");
+        return u;
+    }
+
+    // login-like request: a read-only repository read first, then a write in its own transaction
+    private void readThenWrite(String email) {
+        users.findAll();
+        new TransactionTemplate(tm).executeWithoutResult(s -> users.save(user(email)));
+    }
+
+    private double replicaReads() {
+        return registry.get("db.routing.reads").tag("target", "r1").counter().count();
+    }
+
+    @Test
+    void read_then_write_in_one_request_writes_on_the_primary() {
+        double before = replicaReads();
+
+        readThenWrite("john@example.com");
+
+        assertEquals(before + 1, replicaReads(), "finder served by the replica");
+        assertTrue(users.existsByEmail("john@example.com"));
+    }
+
+    @Test
+    void reads_that_follow_a_write_are_pinned_to_the_primary() {
+        double before = replicaReads();
+
+        users.findAuthPrincipalByEmail("john@example.com");
+        users.findByIdGreaterThanOrderById(0L, PageRequest.of(0, 10));
+        outbox.findDueIds(MailOutbox.Status.PENDING, Instant.now(), PageRequest.of(0, 10));
+        outbox.findAllById(List.of(1L));
+        resetTokens.findExpiredIds(Instant.now(), PageRequest.of(0, 10));
+        resetTokens.findUsedIdsBefore(Instant.now(), PageRequest.of(0, 10));
+        assertEquals(before, replicaReads());
+
+        users.findAll();
+        assertEquals(before + 1, replicaReads(), "unpinned reads still use the replica");
+    }
+
+    @Test
+    void open_in_view_would_keep_the_replica_connection_for_the_write() {
+        // what OpenEntityManagerInViewInterceptor does for the whole request (refused by DataSourceConfig)
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(emf.createEntityManager()));
+
+        var e = assertThrows(JpaSystemException.class, () -> readThenWrite("jane@example.com"));
+        assertTrue(e.getMessage().contains("Not enough rights"), e.getMessage());
+    }
+}
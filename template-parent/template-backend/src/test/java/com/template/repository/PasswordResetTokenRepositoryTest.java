@@ -0,0 +1,75 @@
+package com.template.repository;
+
+import com.template.entity.PasswordResetToken;
+import com.template.entity.User;
+import com.template.security.TokenDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PasswordResetTokenRepositoryTest {
+
+    @Autowired
+    private PasswordResetTokenRepository tokens;
+    @Autowired
+    private UserRepository users;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokens.deleteAll();
+        users.deleteAll();
+        user = new User();
+        user.setEmail("john.doe@example.com");
+        user.setPassword("{bcrypt}old");
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        users.save(user);
+    }
+
+    @Test
+    void token_is_consumed_once() {
+        Instant now = Instant.now();
+        tokens.save(new PasswordResetToken(user, TokenDigest.sha256("tok"), now, now.plusSeconds(1800)));
+
+        assertTrue(tokens.existsValidByHash(TokenDigest.sha256("tok"), now));
+        Optional<PasswordResetTokenRepository.TokenOwner> owner = tokens.consumeByHash(TokenDigest.sha256("tok"), now);
+        assertTrue(owner.isPresent());
+        assertEquals(user.getId(), owner.get().getUserId());
+        assertEquals("john.doe@example.com", owner.get().getEmail());
+
+        assertFalse(tokens.existsValidByHash(TokenDigest.sha256("tok"), now), "spent");
+        assertTrue(tokens.consumeByHash(TokenDigest.sha256("tok"), now).isEmpty(), "second use");
+        assertTrue(tokens.consumeByHash(TokenDigest.sha256("other"), now).isEmpty(), "unknown");
+    }
+
+    @Test
+    void expired_token_is_not_consumed() {
+        Instant now = Instant.now();
+        tokens.save(new PasswordResetToken(user, "raw", now.minusSeconds(3600), now.minusSeconds(1)));
+
+        assertFalse(tokens.existsValidByToken("raw", now));
+        assertTrue(tokens.consumeByToken("raw", now).isEmpty());
+        assertNull(tokens.findByToken("raw").orElseThrow().getUsedAt());
+    }
+
+    @Test
+    void reset_sets_hash_and_bumps_version() {
+        assertEquals(1, users.resetPassword(user.getId(), "{bcrypt}new"));
+
+        User reloaded = users.findByEmail("john.doe@example.com").orElseThrow();
+        assertEquals("{bcrypt}new", reloaded.getPassword());
+        assertEquals(user.getSecurityVersion() + 1, reloaded.getSecurityVersion());
+    }
+}
@@ -0,0 +1,44 @@
+package com.template.security;
+
+import com.template.repository.UserRepository;
+import com.template.repository.UserRepository.AuthPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuthPrincipalCacheTest {
+
+    private final UserRepository repo = mock(UserRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthPrincipalCache cache = new AuthPrincipalCache(repo, registry, true, 100, 60);
+
+    @Test
+    void lookups_are_cached_by_normalized_email_until_evicted() {
+        AuthPrincipal p = new AuthPrincipal(7L, "john@example.com", "{bcrypt}x", 1, 0);
+        when(repo.findAuthPrincipalByEmail("john@example.com")).thenReturn(Optional.of(p));
+
+        assertEquals(Optional.of(p), cache.get("john@example.com"));
+        assertEquals(Optional.of(p), cache.get(" John@Example.com "));
+        verify(repo, times(1)).findAuthPrincipalByEmail("john@example.com");
+
+        cache.evict("JOHN@example.com");
+        cache.get("john@example.com");
+        verify(repo, times(2)).findAuthPrincipalByEmail("john@example.com");
+
+        assertEquals(1, registry.get("cache.gets").tag("cache", "auth.principals").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void unknown_emails_are_not_cached() {
+        when(repo.findAuthPrincipalByEmail("ghost@example.com")).thenReturn(Optional.empty());
+
+        assertTrue(cache.get("ghost@example.com").isEmpty());
+        assertTrue(cache.get("ghost@example.com").isEmpty());
+        verify(repo, times(2)).findAuthPrincipalByEmail("ghost@example.com");
+    }
+}
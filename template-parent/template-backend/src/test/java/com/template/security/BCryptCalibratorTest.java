@@ -0,0 +1,33 @@
+package com.template.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BCryptCalibratorTest {
+
+    private static String hash(int cost) {
+        return String.format("$2a$%02d$abcdefghijklmnopqrstuu5s2v8.iXieOjg/.AySBTTZIIVFJeBui", cost);
+    }
+
+    @Test
+    void calibrated_strength_only_rehashes_below_the_minimum() {
+        // this node settled on 12, another one on 11 or 13
+        var encoder = new BCryptCalibrator.RehashingEncoder(12, 10, Integer.MAX_VALUE);
+
+        assertTrue(encoder.upgradeEncoding(hash(9)));
+        assertFalse(encoder.upgradeEncoding(hash(11)));
+        assertFalse(encoder.upgradeEncoding(hash(13)));
+    }
+
+    @Test
+    void pinned_strength_rehashes_any_other_strength() {
+        var encoder = new BCryptCalibrator.RehashingEncoder(12, 12, 12);
+
+        assertTrue(encoder.upgradeEncoding(hash(11)));
+        assertTrue(encoder.upgradeEncoding(hash(13)));
+        assertFalse(encoder.upgradeEncoding(hash(12)));
+        assertFalse(encoder.upgradeEncoding("plain-legacy"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+}
@@ -0,0 +1,121 @@
+package com.template.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadPasswordEncoderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BulkheadPasswordEncoder encoder;
+
+    // "slow" blocks its worker until release, anything else hashes instantly
+    private final PasswordEncoder delegate = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence raw) {
+            if ("boom".contentEquals(raw)) {
+                throw new IllegalArgumentException("boom");
+            }
+            return "hash:" + raw;
+        }
+
+        @Override
+        public boolean matches(CharSequence raw, String encoded) {
+            if ("slow".contentEquals(raw)) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return encoded.equals("hash:" + raw);
+        }
+    };
+
+    private BulkheadPasswordEncoder encoder(int queueCapacity, Duration maxWait) {
+        encoder = new BulkheadPasswordEncoder(delegate, 1, queueCapacity, maxWait, 7, registry);
+        return encoder;
+    }
+
+    // occupies the only worker until release
+    private CompletableFuture<Boolean> occupyWorker() throws InterruptedException {
+        var busy = CompletableFuture.supplyAsync(() -> encoder.matches("slow", "hash:slow"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return busy;
+    }
+
+    private double rejected(String reason) {
+        return registry.get("auth.hashing.rejected").tag("reason", reason).counter().count();
+    }
+
+    private static void assertShed(Runnable call) {
+        var e = assertThrows(HashingUnavailableException.class, call::run);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertEquals("7", e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.destroy();
+    }
+
+    @Test
+    void delegates_when_a_worker_is_free() {
+        encoder(4, Duration.ofSeconds(5));
+
+        assertEquals("hash:pwd", encoder.encode("pwd"));
+        assertTrue(encoder.matches("pwd", "hash:pwd"));
+        assertFalse(encoder.matches("pwd", "hash:other"));
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode("boom"));
+        assertEquals(4, registry.get("auth.hashing.wait").timer().count());
+    }
+
+    @Test
+    void full_queue_is_shed_immediately() throws Exception {
+        encoder(1, Duration.ofSeconds(5));
+        var busy = occupyWorker();
+        var queued = CompletableFuture.supplyAsync(() -> encoder.matches("pwd", "hash:pwd"));
+        while (registry.get("auth.hashing.queue.depth").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        assertShed(() -> encoder.matches("pwd", "hash:pwd"));
+        assertEquals(1.0, rejected("queue_full"));
+
+        release.countDown();
+        assertTrue(busy.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS), "queued job still served");
+    }
+
+    @Test
+    void wait_past_max_wait_is_shed_and_frees_its_queue_slot() throws Exception {
+        encoder(4, Duration.ofMillis(100));
+        var busy = occupyWorker();
+
+        assertShed(() -> encoder.matches("pwd", "hash:pwd"));
+        assertEquals(0.0, registry.get("auth.hashing.queue.depth").gauge().value());
+
+        // the caller holding the worker is past maxWait too, but its hash already started: it gets the result
+        Thread.sleep(200);
+        assertFalse(busy.isDone());
+        release.countDown();
+        assertTrue(busy.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, rejected("timeout"));
+        assertEquals(0.0, rejected("queue_full"));
+        assertEquals(1, registry.get("auth.hashing.wait").timer().count(), "shed job never reached a worker");
+    }
+}
@@ -0,0 +1,61 @@
+package com.template.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecureTokenGeneratorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SecureTokenGenerator generator = new SecureTokenGenerator(registry, 2, 256);
+
+    @AfterEach
+    void tearDown() {
+        generator.destroy();
+    }
+
+    @Test
+    void base64url_matches_the_jdk_encoder() {
+        Random random = new Random(42);
+        for (int len = 0; len <= 100; len++) {
+            byte[] src = new byte[len];
+            random.nextBytes(src);
+            byte[] dst = new byte[SecureTokenGenerator.encodedLength(len)];
+            int n = SecureTokenGenerator.base64url(src, len, dst);
+            assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(src),
+                    new String(dst, 0, n, StandardCharsets.ISO_8859_1), "length " + len);
+        }
+    }
+
+    @Test
+    void tokens_are_distinct_across_buffer_refills() {
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 1000; i++) { // 48 kB through 256-byte buffers
+            String token = generator.nextToken(48);
+            assertEquals(64, token.length());
+            assertTrue(seen.add(token));
+        }
+        assertEquals(48_000, registry.get("security.random.bytes").counter().count());
+        double refills = registry.get("security.random.refills").tag("mode", "background").counter().count()
+                + registry.get("security.random.refills").tag("mode", "inline").counter().count();
+        assertTrue(refills > 0);
+    }
+
+    @Test
+    void large_requests_span_buffers() {
+        byte[] big = generator.nextBytes(1000);
+        int zeros = 0;
+        for (byte b : big) {
+            zeros += b == 0 ? 1 : 0;
+        }
+        assertTrue(zeros < 20, "bytes look random: " + zeros + " zeros");
+    }
+}
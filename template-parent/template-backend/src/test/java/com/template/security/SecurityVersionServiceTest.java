@@ -0,0 +1,63 @@
+package com.template.security;
+
+import com.template.repository.UserRepository;
+import com.template.repository.UserRepository.AuthPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SecurityVersionServiceTest {
+
+    private static final String EMAIL = "john@example.com";
+
+    private final UserRepository repo = mock(UserRepository.class);
+    private final AtomicLong nanos = new AtomicLong();
+    private final SecurityVersionService versions = new SecurityVersionService(
+            new AuthPrincipalCache(repo, new SimpleMeterRegistry(), true, 100, 60, nanos::get));
+
+    private void storedVersion(int sv) {
+        when(repo.findAuthPrincipalByEmail(EMAIL))
+                .thenReturn(Optional.of(new AuthPrincipal(1L, EMAIL, "{bcrypt}x", 1, sv)));
+    }
+
+    @Test
+    void token_version_must_match_the_stored_one() {
+        storedVersion(0);
+
+        assertTrue(versions.isCurrent(EMAIL, null), "missing claim = version 0");
+        assertTrue(versions.isCurrent(EMAIL, 0));
+        assertFalse(versions.isCurrent(EMAIL, 1));
+        assertFalse(versions.isCurrent("ghost@example.com", 0), "unknown user");
+    }
+
+    @Test
+    void evict_after_a_bump_rejects_old_tokens_and_accepts_new_ones() {
+        storedVersion(0);
+        assertTrue(versions.isCurrent(EMAIL, 0));
+
+        storedVersion(1); // password reset committed on this instance
+        versions.evict(EMAIL);
+
+        assertFalse(versions.isCurrent(EMAIL, 0));
+        assertTrue(versions.isCurrent(EMAIL, 1));
+    }
+
+    @Test
+    void other_replicas_catch_up_once_the_entry_expires() {
+        storedVersion(0);
+        assertTrue(versions.isCurrent(EMAIL, 0));
+
+        storedVersion(1); // bumped on another replica: no local eviction
+        assertTrue(versions.isCurrent(EMAIL, 0), "stale until the TTL");
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertFalse(versions.isCurrent(EMAIL, 0));
+        assertTrue(versions.isCurrent(EMAIL, 1));
+    }
+}
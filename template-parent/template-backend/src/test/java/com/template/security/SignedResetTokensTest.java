@@ -0,0 +1,45 @@
+package com.template.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignedResetTokensTest {
+
+    private static final String SECRET = "test-reset-secret-at-least-32-bytes-long!";
+
+    private final SignedResetTokens tokens = new SignedResetTokens(SECRET);
+
+    @Test
+    void issued_token_verifies_until_expiry() {
+        Instant now = Instant.ofEpochSecond(1_700_000_000L);
+        String token = tokens.issue(42, 7, now.plusSeconds(1800));
+
+        SignedResetTokens.Claims claims = tokens.verify(token, now).orElseThrow();
+        assertEquals(42, claims.userId());
+        assertEquals(7, claims.securityVersion());
+        assertTrue(tokens.verify(token, now.plusSeconds(1800)).isEmpty(), "expired");
+    }
+
+    @Test
+    void tampered_or_foreign_tokens_are_rejected() {
+        Instant now = Instant.now();
+        String token = tokens.issue(42, 7, now.plusSeconds(1800));
+        byte[] raw = Base64.getUrlDecoder().decode(token);
+        raw[8] ^= 1; // user id
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+
+        assertTrue(tokens.verify(tampered, now).isEmpty());
+        assertTrue(new SignedResetTokens(SECRET + "x").verify(token, now).isEmpty());
+        assertTrue(tokens.verify("not a token", now).isEmpty());
+        assertTrue(tokens.verify("", now).isEmpty());
+    }
+
+    @Test
+    void short_secret_is_refused() {
+        assertThrows(IllegalArgumentException.class, () -> new SignedResetTokens("too-short"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.template.security.ip;
+
+import com.template.security.ClientIpResolver;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CidrTrieTest {
+
+    @Test
+    void parses_ipv4_ipv6_and_rejects_garbage() {
+        assertEquals("192.0.2.1", IpAddress.parse("192.0.2.1").toString());
+        assertEquals("192.0.2.1", IpAddress.parse(" 192.0.2.1:8080 ").toString());
+        assertEquals(IpAddress.parse("192.0.2.1"), IpAddress.parse("::ffff:192.0.2.1"));
+        assertEquals("2001:db8::1", IpAddress.parse("2001:0db8:0:0:0:0:0:1").toString());
+        assertEquals("::1", IpAddress.parse("[::1]:443").toString());
+        assertEquals("fe80::1", IpAddress.parse("fe80::1%eth0").toString());
+        assertEquals("::", IpAddress.parse("::").toString());
+        assertEquals("1::", IpAddress.parse("1::").toString());
+
+        for (String bad : List.of("", "256.1.1.1", "1.2.3", "1.2.3.4.5", "1::2::3", "12345::", ":1", "1:2:3:4:5:6:7:8:9", "abc")) {
+            assertNull(IpAddress.parse(bad), bad);
+        }
+    }
+
+    @Test
+    void longest_prefix_wins() {
+        CidrTrie<String> trie = new CidrTrie<>();
+        trie.put("10.0.0.0/8", "corp");
+        trie.put("10.1.0.0/16", "lab");
+        trie.put("10.1.2.3", "host");
+        trie.put("2001:db8::/32", "doc6");
+        trie.put("2001:db8:1::/48", "site6");
+
+        assertEquals("corp", trie.longestMatch(IpAddress.parse("10.200.0.1")));
+        assertEquals("lab", trie.longestMatch(IpAddress.parse("10.1.9.9")));
+        assertEquals("host", trie.longestMatch(IpAddress.parse("10.1.2.3")));
+        assertNull(trie.longestMatch(IpAddress.parse("11.0.0.1")));
+        assertEquals("site6", trie.longestMatch(IpAddress.parse("2001:db8:1:ffff::5")));
+        assertEquals("doc6", trie.longestMatch(IpAddress.parse("2001:db8:2::5")));
+        assertNull(trie.longestMatch(IpAddress.parse("2001:db9::1")));
+        // an IPv4 prefix never matches a plain IPv6 address
+        assertNull(trie.longestMatch(IpAddress.parse("::a01:203")));
+        assertEquals(5, trie.size());
+    }
+
+    @Test
+    void insertion_order_does_not_matter() {
+        CidrTrie<String> trie = new CidrTrie<>();
+        trie.put("10.1.2.3", "host");
+        trie.put("10.1.0.0/16", "lab");
+        trie.put("10.0.0.0/8", "corp");
+        trie.put("0.0.0.0/0", "any4");
+
+        assertEquals("host", trie.longestMatch(IpAddress.parse("10.1.2.3")));
+        assertEquals("lab", trie.longestMatch(IpAddress.parse("10.1.2.4")));
+        assertEquals("corp", trie.longestMatch(IpAddress.parse("10.2.0.0")));
+        assertEquals("any4", trie.longestMatch(IpAddress.parse("8.8.8.8")));
+        assertNull(trie.longestMatch(IpAddress.parse("2001:db8::1")));
+    }
+
+    @Test
+    void resolver_trusts_forwarded_headers_only_from_proxies_and_aggregates() {
+        ClientIpResolver resolver = new ClientIpResolver(
+                List.of("10.0.0.0/8"), List.of("198.51.100.0/24"), List.of(), 24, 64);
+
+        MockHttpServletRequest viaProxy = new MockHttpServletRequest();
+        viaProxy.setRemoteAddr("10.0.0.5");
+        viaProxy.addHeader("X-Forwarded-For", "203.0.113.9, 192.0.2.44, 10.0.0.7");
+        assertEquals("192.0.2.44", resolver.resolve(viaProxy).toString());
+
+        MockHttpServletRequest direct = new MockHttpServletRequest();
+        direct.setRemoteAddr("192.0.2.99");
+        direct.addHeader("X-Forwarded-For", "1.2.3.4");
+        assertEquals("192.0.2.99", resolver.resolve(direct).toString());
+
+        assertEquals("192.0.2.0", resolver.rateKey(IpAddress.parse("192.0.2.99")).toString());
+        assertEquals("2001:db8:0:1::", resolver.rateKey(IpAddress.parse("2001:db8:0:1:aaaa:bbbb:cccc:dddd")).toString());
+
+        assertTrue(resolver.isAllowlisted(IpAddress.parse("198.51.100.200")));
+        assertFalse(resolver.isDenylisted(IpAddress.parse("198.51.100.200")));
+    }
+}
@@ -0,0 +1,60 @@
+package com.template.security.jwt;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeysEndpointTest {
+
+    private static final String SECRET_A = "a".repeat(32);
+    private static final String SECRET_B = "b".repeat(32);
+    private static final String SECRET_C = "c".repeat(32);
+
+    private final JwtService jwt = new JwtService("HS256", SECRET_A, "", "", "k1", "", "issuer", "", 30);
+    private final VerifiedTokenCache tokens = new VerifiedTokenCache(jwt, new SimpleMeterRegistry(), true, 100);
+    private final JwtKeysEndpoint endpoint = new JwtKeysEndpoint(jwt, tokens);
+
+    // token signed with k2, k1 signing again afterwards
+    private String tokenSignedWithK2() {
+        endpoint.add("k2", SECRET_B);
+        endpoint.promote("k2", "promote");
+        String token = jwt.generateToken("john@example.com", 600, Map.of());
+        endpoint.promote("k1", "promote");
+        tokens.verify(token); // cached
+        return token;
+    }
+
+    @Test
+    void replacing_a_key_drops_tokens_verified_with_the_old_material() {
+        String token = tokenSignedWithK2();
+
+        endpoint.add("k2", SECRET_C);
+
+        assertThrows(JwtException.class, () -> tokens.verify(token));
+    }
+
+    @Test
+    void removing_a_key_drops_tokens_it_verified() {
+        String token = tokenSignedWithK2();
+
+        endpoint.remove("k2");
+
+        assertThrows(JwtException.class, () -> tokens.verify(token));
+    }
+
+    @Test
+    void the_signing_key_cannot_be_replaced() {
+        assertThrows(IllegalArgumentException.class, () -> endpoint.add("k1", SECRET_C));
+    }
+
+    @Test
+    void unknown_action_is_refused() {
+        assertThrows(InvalidEndpointRequestException.class, () -> endpoint.promote("k1", "demote"));
+        assertEquals("k1", endpoint.keys().get("signing"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.template.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenDenylistTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static Date in(long millis) {
+        return new Date(System.currentTimeMillis() + millis);
+    }
+
+    @Test
+    void revoked_id_is_found_in_its_expiry_bucket() {
+        var denylist = new TokenDenylist(registry, 60, 30);
+        Date exp = in(600_000);
+
+        denylist.revoke("jti-1", exp);
+
+        assertTrue(denylist.isRevoked("jti-1", exp));
+        assertFalse(denylist.isRevoked("jti-2", exp));
+        assertFalse(denylist.isRevoked("jti-1", null));
+        assertEquals(1.0, registry.get("auth.jwt.denylist.size").gauge().value());
+    }
+
+    @Test
+    void token_past_exp_and_skew_is_not_stored() {
+        var denylist = new TokenDenylist(registry, 60, 30);
+
+        Date withinSkew = in(-10_000);
+
+        denylist.revoke("expired", in(-60_000));
+        denylist.revoke("within-skew", withinSkew);
+
+        assertEquals(1, denylist.size());
+        assertTrue(denylist.isRevoked("within-skew", withinSkew));
+    }
+
+    @Test
+    void purge_drops_only_fully_expired_buckets() throws InterruptedException {
+        var denylist = new TokenDenylist(registry, 1, 0);
+        Date soon = in(300);
+        Date later = in(600_000);
+        denylist.revoke("soon", soon);
+        denylist.revoke("later", later);
+
+        denylist.purge();
+        assertEquals(2, denylist.size(), "nothing expired yet");
+
+        // wait until the whole one-second bucket of "soon" is in the past
+        long bucketEnd = (Math.floorDiv(soon.getTime(), 1000) + 1) * 1000;
+        Thread.sleep(bucketEnd - System.currentTimeMillis() + 50);
+        denylist.purge();
+
+        assertEquals(1, denylist.size());
+        assertFalse(denylist.isRevoked("soon", soon));
+        assertTrue(denylist.isRevoked("later", later));
+    }
+}
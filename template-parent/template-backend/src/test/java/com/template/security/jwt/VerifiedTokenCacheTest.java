@@ -0,0 +1,91 @@
+package com.template.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+
+    private final JwtService jwt = spy(new JwtService("HS256", "a".repeat(32), "", "", "k1", "", "issuer", "", 30));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final VerifiedTokenCache tokens = new VerifiedTokenCache(jwt, registry, true, 100);
+
+    @SuppressWarnings("unchecked")
+    private void stubParse(String token, Date exp) {
+        Jws<Claims> jws = mock(Jws.class);
+        when(jws.getBody()).thenReturn(Jwts.claims().setSubject("john@example.com").setExpiration(exp));
+        doReturn(jws).when(jwt).parse(token);
+    }
+
+    @Test
+    void second_verify_is_served_from_the_cache() {
+        String token = jwt.generateToken("john@example.com", 600, Map.of());
+
+        assertEquals("john@example.com", tokens.verify(token).getSubject());
+        assertEquals("john@example.com", tokens.verify(token).getSubject());
+
+        verify(jwt, times(1)).parse(token);
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "jwt.verified-tokens").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void entry_expires_with_the_token() throws InterruptedException {
+        stubParse("short", new Date(System.currentTimeMillis() + 200));
+
+        tokens.verify("short");
+        Thread.sleep(400);
+        tokens.verify("short");
+
+        verify(jwt, times(2)).parse("short");
+    }
+
+    @Test
+    void token_without_exp_is_never_cached() {
+        stubParse("forever", null);
+
+        tokens.verify("forever");
+        tokens.verify("forever");
+
+        verify(jwt, times(2)).parse("forever");
+    }
+
+    @Test
+    void rejected_token_is_not_cached() {
+        assertThrows(JwtException.class, () -> tokens.verify("not.a.jwt"));
+        assertThrows(JwtException.class, () -> tokens.verify("not.a.jwt"));
+
+        verify(jwt, times(2)).parse("not.a.jwt");
+    }
+
+    @Test
+    void invalidate_all_forces_a_new_parse() {
+        String token = jwt.generateToken("john@example.com", 600, Map.of());
+        tokens.verify(token);
+
+        tokens.invalidateAll();
+        tokens.verify(token);
+
+        verify(jwt, times(2)).parse(token);
+    }
+
+    @Test
+    void disabled_cache_always_parses() {
+        var uncached = new VerifiedTokenCache(jwt, new SimpleMeterRegistry(), false, 100);
+        String token = jwt.generateToken("john@example.com", 600, Map.of());
+
+        uncached.verify(token);
+        uncached.verify(token);
+
+        verify(jwt, times(2)).parse(token);
+    }
+}
@@ -0,0 +1,167 @@
+package com.template.security.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.template.security.ClientIpResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RateLimitFilter filter = new RateLimitFilter(
+            new RateLimitProperties(true, 1024, 256, Map.of(
+                    "login", new RateLimitProperties.Route("/auth/login", "POST",
+                            new RateLimitProperties.Limit(3, 3, Duration.ofMinutes(1)),
+                            new RateLimitProperties.Limit(2, 2, Duration.ofMinutes(1))))),
+            new ClientIpResolver(List.of(), List.of(), List.of(), 32, 64),
+            new ObjectMapper(),
+            registry);
+
+    private MockHttpServletResponse post(String uri, String ip, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static String login(String email) {
+        return "{\"email\":\"" + email + "\",\"password\":\"x\"}";
+    }
+
+    @Test
+    void ip_limit_answers_429_with_retry_after() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, post("/auth/login", "203.0.113.7", login("u" + i + "@example.com")).getStatus());
+        }
+        MockHttpServletResponse rejected = post("/auth/login", "203.0.113.7", login("u9@example.com"));
+
+        assertEquals(429, rejected.getStatus());
+        assertTrue(Integer.parseInt(rejected.getHeader("Retry-After")) >= 1);
+        assertEquals(1, registry.get("auth.rate-limit.requests").tag("outcome", "rejected_ip").counter().count());
+    }
+
+    @Test
+    void email_limit_is_keyed_on_the_normalized_email_across_ips() throws Exception {
+        assertEquals(200, post("/auth/login", "203.0.113.1", login("John@Example.com")).getStatus());
+        assertEquals(200, post("/auth/login", "203.0.113.2", login(" john@example.com")).getStatus());
+        assertEquals(429, post("/auth/login", "203.0.113.3", login("john@example.com")).getStatus());
+        assertEquals(200, post("/auth/login", "203.0.113.4", login("jane@example.com")).getStatus());
+    }
+
+    @Test
+    void encoded_and_trailing_slash_paths_hit_the_same_route() throws Exception {
+        assertEquals(200, post("/auth/login", "203.0.113.1", login("a@example.com")).getStatus());
+        assertEquals(200, post("/auth/%6Cogin", "203.0.113.1", login("b@example.com")).getStatus());
+        assertEquals(200, post("/auth/login/", "203.0.113.1", login("c@example.com")).getStatus());
+        assertEquals(429, post("/auth/%6cogin;x=1", "203.0.113.1", login("d@example.com")).getStatus());
+    }
+
+    @Test
+    void body_without_length_is_still_keyed_and_oversized_one_is_refused() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/auth/login");
+            chunked.setRemoteAddr("203.0.113." + (10 + i));
+            chunked.setContentType("text/plain"); // not declared as JSON: still read
+            chunked.setContent(login("x@example.com").getBytes(StandardCharsets.UTF_8));
+            chunked.addHeader("Transfer-Encoding", "chunked");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new UnknownLength(chunked), response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+        assertEquals(429, post("/auth/login", "203.0.113.20", login("x@example.com")).getStatus());
+
+        String padded = "{\"email\":\"y@example.com\",\"pad\":\"" + "p".repeat(300) + "\"}";
+        assertEquals(413, post("/auth/login", "203.0.113.30", padded).getStatus());
+    }
+
+    @Test
+    void cached_body_supports_read_listeners() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+        CachedBodyRequest cached = new CachedBodyRequest(request, "{}".getBytes(StandardCharsets.UTF_8));
+        ServletInputStream in = cached.getInputStream();
+        AtomicBoolean done = new AtomicBoolean();
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                while (in.isReady() && !in.isFinished()) {
+                    in.read();
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                done.set(true);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(t);
+            }
+        });
+        assertTrue(done.get());
+    }
+
+    // chunked request: no Content-Length, body only known by reading it
+    private static final class UnknownLength extends jakarta.servlet.http.HttpServletRequestWrapper {
+        private final byte[] body;
+
+        UnknownLength(MockHttpServletRequest request) {
+            super(request);
+            this.body = request.getContentAsByteArray();
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            InputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() throws IOException {
+                    return in.read();
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return false;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                }
+            };
+        }
+    }
+}
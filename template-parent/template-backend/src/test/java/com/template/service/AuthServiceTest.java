@@ -0,0 +1,64 @@
+package com.template.service;
+
+import com.template.dto.LoginRequestDTO;
+import com.template.dto.RegisterRequestDTO;
+import com.template.entity.User;
+import com.template.repository.UserRepository;
+import com.template.repository.UserRepository.AuthPrincipal;
+import com.template.security.AuthPrincipalCache;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuthServiceTest {
+
+    private final UserRepository repo = mock(UserRepository.class);
+    private final PasswordEncoder encoder = mock(PasswordEncoder.class);
+    private final PasswordUpgradeService upgrades = mock(PasswordUpgradeService.class);
+    private final AuthPrincipalCache principals = mock(AuthPrincipalCache.class);
+    private final AuthService service = new AuthService(repo, encoder, mock(Validator.class), upgrades,
+            mock(EmailBloomFilter.class), principals);
+
+    private final AuthPrincipal john = new AuthPrincipal(7L, "john@example.com", "{bcrypt}old", 1, 0);
+
+    @Test
+    void wrong_password_never_loads_the_entity() {
+        when(principals.get("john@example.com")).thenReturn(Optional.of(john));
+        when(encoder.matches("bad", "{bcrypt}old")).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> service.login(new LoginRequestDTO("john@example.com", "bad")));
+        verify(repo, never()).findById(any());
+        verifyNoInteractions(upgrades);
+    }
+
+    @Test
+    void rehashed_login_evicts_the_principal_and_returns_the_entity() {
+        when(principals.get("john@example.com")).thenReturn(Optional.of(john));
+        when(encoder.matches("good", "{bcrypt}old")).thenReturn(true);
+        when(upgrades.upgradeIfNeeded(7L, "{bcrypt}old", "good")).thenReturn(true);
+        User user = new User();
+        when(repo.findById(7L)).thenReturn(Optional.of(user));
+
+        assertSame(user, service.login(new LoginRequestDTO("john@example.com", "good")));
+        verify(principals).evict("john@example.com");
+    }
+
+    @Test
+    void account_created_elsewhere_is_a_conflict_not_a_server_error() {
+        // the filter has not seen the other instance's register yet: no existsByEmail, the unique index answers
+        when(repo.save(any())).thenThrow(new DataIntegrityViolationException("uk_users_email"));
+
+        var e = assertThrows(ResponseStatusException.class, () -> service.register(
+                new RegisterRequestDTO("john@example.com", "Str0ng!Passw0rd", "John", "Doe")));
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+    }
+}
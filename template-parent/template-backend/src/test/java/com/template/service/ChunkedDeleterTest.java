@@ -0,0 +1,34 @@
+package com.template.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedDeleterTest {
+
+    @Test
+    void deletes_in_chunks_until_a_short_one() {
+        AtomicInteger remaining = new AtomicInteger(1050);
+        ChunkedDeleter.Result r = new ChunkedDeleter(500, 0).run(limit -> {
+            int n = Math.min(limit, remaining.get());
+            remaining.addAndGet(-n);
+            return n;
+        }, System.nanoTime() + 60_000_000_000L);
+
+        assertEquals(1050, r.rows());
+        assertEquals(3, r.chunks());
+        assertTrue(r.complete());
+    }
+
+    @Test
+    void stops_at_the_deadline() {
+        long deadline = System.nanoTime() + 50_000_000L; // 50 ms, chunks 20 ms apart
+        ChunkedDeleter.Result r = new ChunkedDeleter(10, 20).run(limit -> limit, deadline);
+
+        assertFalse(r.complete());
+        assertTrue(r.chunks() >= 1 && r.chunks() <= 4, "chunks: " + r.chunks());
+        assertEquals(r.chunks() * 10L, r.rows());
+    }
+}
@@ -0,0 +1,105 @@
+package com.template.service;
+
+import com.template.repository.UserRepository;
+import com.template.repository.UserRepository.EmailRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EmailBloomFilterTest {
+
+    private static final int N = 20_000;
+
+    private EmailBloomFilter loadedFilter(double fpp) {
+        UserRepository repo = mock(UserRepository.class);
+        when(repo.streamAllEmails()).thenReturn(IntStream.range(0, N).mapToObj(i -> "user" + i + "@example.com"));
+        EmailBloomFilter filter = new EmailBloomFilter(repo, new SimpleMeterRegistry(), N, fpp, 5000);
+        filter.load();
+        return filter;
+    }
+
+    @Test
+    void answers_maybe_until_loaded() {
+        UserRepository repo = mock(UserRepository.class);
+        when(repo.streamAllEmails()).thenReturn(Stream.empty());
+        EmailBloomFilter filter = new EmailBloomFilter(repo, new SimpleMeterRegistry(), 100, 0.01, 5000);
+
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain("nobody@example.com"));
+
+        filter.load();
+        assertTrue(filter.isReady());
+        assertFalse(filter.mightContain("nobody@example.com"));
+    }
+
+    @Test
+    void no_false_negatives_and_normalized_lookups() {
+        EmailBloomFilter filter = loadedFilter(0.01);
+
+        for (int i = 0; i < N; i++) {
+            assertTrue(filter.mightContain("user" + i + "@example.com"));
+        }
+        assertTrue(filter.mightContain("  USER42@Example.COM "));
+
+        filter.put("New.User@Example.com");
+        assertTrue(filter.mightContain("new.user@example.com"));
+    }
+
+    @Test
+    void false_positive_rate_close_to_target() {
+        EmailBloomFilter filter = loadedFilter(0.01);
+
+        int probes = 50_000;
+        long falsePositives = IntStream.range(0, probes)
+                .filter(i -> filter.mightContain("absent" + i + "@example.org"))
+                .count();
+
+        double observed = (double) falsePositives / probes;
+        assertTrue(observed < 0.02, "observed fpp " + observed);
+        assertEquals(0.01, filter.expectedFpp(), 0.005);
+        assertEquals(N, filter.approximateSize(), N * 0.05);
+    }
+
+    @Test
+    void sync_adds_accounts_created_on_other_instances() {
+        UserRepository repo = mock(UserRepository.class);
+        when(repo.findMaxId()).thenReturn(10L);
+        when(repo.streamAllEmails()).thenReturn(Stream.of("local@example.com"));
+        when(repo.findByIdGreaterThanOrderById(eq(10L), any())).thenReturn(List.of(new EmailRow(11L, "Remote@Example.com")));
+        when(repo.findByIdGreaterThanOrderById(eq(11L), any())).thenReturn(List.of());
+        EmailBloomFilter filter = new EmailBloomFilter(repo, new SimpleMeterRegistry(), 100, 0.01, 5000);
+        filter.load();
+        assertFalse(filter.mightContain("remote@example.com"));
+
+        filter.sync();
+        assertTrue(filter.mightContain("remote@example.com"));
+
+        // next rounds: once more from the previous high-water mark (late commits), then from the new one
+        filter.sync();
+        filter.sync();
+        verify(repo, times(2)).findByIdGreaterThanOrderById(eq(10L), any());
+        verify(repo, times(1)).findByIdGreaterThanOrderById(eq(11L), any());
+    }
+
+    @Test
+    void stale_filter_defers_to_the_db() throws InterruptedException {
+        UserRepository repo = mock(UserRepository.class);
+        when(repo.streamAllEmails()).thenReturn(Stream.empty());
+        EmailBloomFilter filter = new EmailBloomFilter(repo, new SimpleMeterRegistry(), 100, 0.01, 1);
+        filter.load();
+
+        Thread.sleep(20); // no sync for more than three intervals
+        assertTrue(filter.mightContain("nobody@example.com"));
+
+        filter.sync();
+        assertFalse(filter.mightContain("nobody@example.com"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.template.service;
+
+import com.template.repository.PasswordResetTokenRepository;
+import com.template.repository.UserRepository;
+import com.template.security.SecureTokenGenerator;
+import com.template.security.SecurityVersionService;
+import com.template.security.SignedResetTokens;
+import com.template.security.TokenDigest;
+import com.template.service.mail.MailOutboxService;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ForgotPasswordServiceTest {
+
+    private final UserRepository users = mock(UserRepository.class);
+    private final PasswordResetTokenRepository tokens = mock(PasswordResetTokenRepository.class);
+    private final PasswordEncoder encoder = mock(PasswordEncoder.class);
+    private final RefreshTokenService refreshTokens = mock(RefreshTokenService.class);
+    private final PasswordResetTokenMigration migration = mock(PasswordResetTokenMigration.class);
+
+    private ForgotPasswordService service() {
+        return new ForgotPasswordService(users, tokens, encoder, mock(MailOutboxService.class),
+                mock(RateLimiterService.class), mock(SecurityVersionService.class), refreshTokens,
+                mock(EmailBloomFilter.class), mock(SignedResetTokens.class), mock(SecureTokenGenerator.class),
+                migration, mock(PlatformTransactionManager.class), "table", "hash");
+    }
+
+    @Test
+    void invalid_token_costs_no_password_hash_and_no_update() {
+        when(migration.isComplete()).thenReturn(true);
+
+        assertFalse(service().resetPassword("garbage", "N3w-Passw0rd!"));
+
+        verify(encoder, never()).encode(any());
+        verify(tokens, never()).existsValidByToken(any(), any());
+        verify(tokens, never()).markUsedByHash(any(), any());
+        verify(users, never()).resetPassword(any(), any());
+    }
+
+    @Test
+    void raw_column_is_searched_only_while_the_migration_is_incomplete() {
+        when(migration.isComplete()).thenReturn(false);
+        when(tokens.existsValidByToken(eq("legacy"), any())).thenReturn(true);
+        when(tokens.consumeByToken(eq("legacy"), any())).thenReturn(Optional.of(owner()));
+        when(encoder.encode("N3w-Passw0rd!")).thenReturn("{bcrypt}new");
+
+        assertTrue(service().resetPassword("legacy", "N3w-Passw0rd!"));
+        verify(users).resetPassword(7L, "{bcrypt}new");
+    }
+
+    @Test
+    void valid_token_is_hashed_then_consumed() {
+        when(migration.isComplete()).thenReturn(true);
+        byte[] digest = TokenDigest.sha256("good");
+        when(tokens.existsValidByHash(eq(digest), any())).thenReturn(true);
+        when(tokens.consumeByHash(eq(digest), any())).thenReturn(Optional.of(owner()));
+        when(encoder.encode("N3w-Passw0rd!")).thenReturn("{bcrypt}new");
+
+        assertTrue(service().resetPassword("good", "N3w-Passw0rd!"));
+
+        verify(users).resetPassword(7L, "{bcrypt}new");
+        verify(refreshTokens).revokeAll(7L);
+        verify(tokens, never()).consumeByToken(any(), any());
+    }
+
+    private static PasswordResetTokenRepository.TokenOwner owner() {
+        return new PasswordResetTokenRepository.TokenOwner() {
+            @Override
+            public Long getUserId() {
+                return 7L;
+            }
+
+            @Override
+            public String getEmail() {
+                return "john@example.com";
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.template.service;
+
+import com.template.entity.PasswordResetToken;
+import com.template.entity.User;
+import com.template.repository.PasswordResetTokenRepository;
+import com.template.repository.UserRepository;
+import com.template.security.TokenDigest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "app.password-reset.migration-batch-size=2")
+@Import(PasswordResetTokenMigration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PasswordResetTokenMigrationTest {
+
+    @Autowired
+    private PasswordResetTokenMigration migration;
+    @Autowired
+    private PasswordResetTokenRepository tokens;
+    @Autowired
+    private UserRepository users;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void plain_tokens_are_replaced_by_their_digest() {
+        User user = new User();
+        user.setEmail("john.doe@example.com");
+        user.setPassword("{bcrypt}x");
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        users.save(user);
+        Instant now = Instant.now();
+        for (String raw : new String[] {"tok-a", "tok-b", "tok-c"}) {
+            tokens.save(new PasswordResetToken(user, raw, now, now.plusSeconds(1800)));
+        }
+        tokens.save(new PasswordResetToken(user, TokenDigest.sha256("tok-d"), now, now.plusSeconds(1800)));
+
+        migration.migrate();
+
+        for (String raw : new String[] {"tok-a", "tok-b", "tok-c", "tok-d"}) {
+            assertTrue(tokens.findByTokenHash(TokenDigest.sha256(raw)).isPresent(), raw);
+            assertTrue(tokens.findByToken(raw).isEmpty(), raw);
+        }
+    }
+
+    @Test
+    void not_null_token_column_stops_startup_with_the_upgrade_statement() {
+        tokens.deleteAll();
+        jdbc.execute("alter table password_reset_tokens alter column token set not null");
+        try {
+            var e = assertThrows(IllegalStateException.class, migration::migrate);
+            assertTrue(e.getMessage().contains("ALTER TABLE password_reset_tokens MODIFY token varchar(180) NULL"));
+        } finally {
+            jdbc.execute("alter table password_reset_tokens alter column token set null");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.template.service;
+
+import com.template.entity.User;
+import com.template.repository.RefreshTokenRepository;
+import com.template.repository.UserRepository;
+import com.template.security.SecureTokenGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@Import(RefreshTokenService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService service;
+    @Autowired
+    private RefreshTokenRepository tokens;
+    @Autowired
+    private UserRepository users;
+    @MockBean
+    private SecureTokenGenerator randomTokens;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokens.deleteAll();
+        users.deleteAll();
+        user = new User();
+        user.setEmail("john.doe@example.com");
+        user.setPassword("{bcrypt}old");
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        users.save(user);
+        AtomicInteger seq = new AtomicInteger();
+        when(randomTokens.nextToken(32)).thenAnswer(i -> "tok-" + seq.incrementAndGet());
+    }
+
+    private static void assertUnauthorized(Runnable call) {
+        var e = assertThrows(ResponseStatusException.class, call::run);
+        assertEquals(HttpStatus.UNAUTHORIZED, e.getStatusCode());
+    }
+
+    @Test
+    void rotation_spends_the_token_and_keeps_the_family() {
+        var first = service.issue(user);
+
+        var rotation = service.rotate(first.value());
+        assertEquals(user.getId(), rotation.user().getId());
+        assertEquals("john.doe@example.com", rotation.user().getEmail(), "owner loaded inside the transaction");
+        assertNotEquals(first.value(), rotation.next().value());
+
+        var second = service.rotate(rotation.next().value());
+        assertNotEquals(rotation.next().value(), second.next().value());
+        assertEquals(3, tokens.count());
+        assertEquals(1, tokens.findAll().stream().map(t -> t.getFamilyId()).distinct().count());
+    }
+
+    @Test
+    void reused_token_revokes_the_whole_family() {
+        var first = service.issue(user);
+        var next = service.rotate(first.value()).next();
+
+        assertUnauthorized(() -> service.rotate(first.value()));
+
+        assertTrue(tokens.findAll().stream().allMatch(t -> t.isRevoked()), "revocation committed despite the 401");
+        assertUnauthorized(() -> service.rotate(next.value()));
+    }
+
+    @Test
+    void expired_token_is_refused_without_being_spent() {
+        var idleExpired = new RefreshTokenService(tokens, randomTokens, -1, 2592000);
+        var expired = idleExpired.issue(user);
+
+        assertUnauthorized(() -> service.rotate(expired.value()));
+        assertUnauthorized(() -> service.rotate(expired.value()));
+
+        assertTrue(tokens.findAll().stream().noneMatch(t -> t.isUsed() || t.isRevoked()), "a retry is not a reuse");
+    }
+
+    @Test
+    void other_families_survive_a_reuse_and_unknown_tokens_are_refused() {
+        var stolen = service.issue(user);
+        var otherLogin = service.issue(user);
+        service.rotate(stolen.value());
+
+        assertUnauthorized(() -> service.rotate(stolen.value()));
+        assertNotNull(service.rotate(otherLogin.value()).next());
+        assertUnauthorized(() -> service.rotate("unknown"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.template.service;
+
+import com.template.entity.Role;
+import com.template.entity.User;
+import com.template.repository.UserRepository;
+import com.template.security.RoleAuthorities;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "app.roles.backfill-batch-size=2")
+@Import(UserRoleBackfill.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserRoleBackfillTest {
+
+    @Autowired
+    private UserRoleBackfill backfill;
+    @Autowired
+    private UserRepository users;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void masks_are_filled_from_the_legacy_table() {
+        jdbc.execute("create table user_roles (user_id bigint not null, role varchar(255))");
+        User admin = save("admin@example.com");
+        User plain = save("user@example.com");
+        User none = save("none@example.com");
+        User already = save("already@example.com");
+        already.addRole(Role.USER);
+        users.save(already);
+        jdbc.update("insert into user_roles values (?, 'USER'), (?, 'ADMIN'), (?, 'USER'), (?, 'LEGACY'), (?, 'ADMIN')",
+                admin.getId(), admin.getId(), plain.getId(), plain.getId(), already.getId());
+
+        backfill.backfill();
+
+        assertEquals(Set.of("USER", "ADMIN"), users.findById(admin.getId()).orElseThrow().getRoles());
+        assertEquals(Set.of("USER"), users.findById(plain.getId()).orElseThrow().getRoles());
+        assertEquals(Set.of(), users.findById(none.getId()).orElseThrow().getRoles());
+        assertEquals(Set.of("USER"), users.findById(already.getId()).orElseThrow().getRoles());
+    }
+
+    @Test
+    void authorities_are_shared_instances() {
+        long mask = Role.USER.bit() | Role.ADMIN.bit();
+        assertSame(RoleAuthorities.of(mask), RoleAuthorities.fromClaim(List.of("ADMIN", "USER", "GONE")));
+        assertEquals("ROLE_USER", RoleAuthorities.of(mask).get(0).getAuthority());
+        assertTrue(RoleAuthorities.fromClaim(null).isEmpty());
+    }
+
+    private User save(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("{bcrypt}x");
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        return users.save(user);
+    }
+}
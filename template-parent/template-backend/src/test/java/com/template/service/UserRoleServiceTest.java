@@ -0,0 +1,51 @@
+package com.template.service;
+
+import com.template.entity.Role;
+import com.template.repository.UserRepository;
+import com.template.repository.UserRepository.AuthPrincipal;
+import com.template.security.SecurityVersionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserRoleServiceTest {
+
+    private final UserRepository repo = mock(UserRepository.class);
+    private final RefreshTokenService refreshTokens = mock(RefreshTokenService.class);
+    private final SecurityVersionService securityVersions = mock(SecurityVersionService.class);
+    private final UserRoleService service = new UserRoleService(repo, refreshTokens, securityVersions);
+
+    @Test
+    void change_bumps_revokes_and_evicts() {
+        when(repo.findAuthPrincipalByEmail("john@example.com"))
+                .thenReturn(Optional.of(new AuthPrincipal(7L, "john@example.com", "{bcrypt}x", Role.USER.bit(), 0)));
+        long both = Role.USER.bit() | Role.ADMIN.bit();
+        when(repo.changeRoles(7L, both)).thenReturn(1);
+
+        assertTrue(service.changeRoles(" John@Example.com", Set.of("USER", "ADMIN")));
+
+        verify(refreshTokens).revokeAll(7L);
+        verify(securityVersions).evict("john@example.com");
+    }
+
+    @Test
+    void same_roles_change_nothing() {
+        when(repo.findAuthPrincipalByEmail("john@example.com"))
+                .thenReturn(Optional.of(new AuthPrincipal(7L, "john@example.com", "{bcrypt}x", Role.USER.bit(), 0)));
+        when(repo.changeRoles(7L, Role.USER.bit())).thenReturn(0);
+
+        assertFalse(service.changeRoles("john@example.com", Set.of("USER")));
+        verifyNoInteractions(refreshTokens, securityVersions);
+    }
+
+    @Test
+    void unknown_role_is_rejected() {
+        assertThrows(ResponseStatusException.class, () -> service.changeRoles("john@example.com", Set.of("ROOT")));
+        verify(repo, never()).changeRoles(anyLong(), anyLong());
+    }
+}
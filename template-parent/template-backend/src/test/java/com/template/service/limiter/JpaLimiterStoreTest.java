@@ -0,0 +1,38 @@
+package com.template.service.limiter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// H2 stands in for the shared database
+@DataJpaTest(properties = "app.limiter.store=jpa")
+@Import(JpaLimiterStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaLimiterStoreTest {
+
+    @Autowired
+    private JpaLimiterStore store;
+
+    @Test
+    void increments_accumulate_across_batches_and_expire() {
+        Instant end = Instant.now().plusSeconds(60);
+        long[] first = store.apply(List.of(
+                new LimiterStore.Increment("ip:1:a", 3, end),
+                new LimiterStore.Increment("ip:1:b", 1, end)));
+        assertArrayEquals(new long[] {3, 1}, first);
+
+        long[] second = store.apply(List.of(new LimiterStore.Increment("ip:1:a", 2, end)));
+        assertArrayEquals(new long[] {5}, second);
+
+        assertEquals(2, store.purgeExpired(end.plusSeconds(1)));
+        assertArrayEquals(new long[] {1}, store.apply(List.of(new LimiterStore.Increment("ip:1:a", 1, end))));
+    }
+}
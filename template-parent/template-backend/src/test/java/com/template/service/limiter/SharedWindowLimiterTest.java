@@ -0,0 +1,124 @@
+package com.template.service.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedWindowLimiterTest {
+
+    private static final long WINDOW = 60_000;
+
+    private final AtomicLong clock = new AtomicLong(10 * WINDOW);
+    private final InMemoryLimiterStore store = new InMemoryLimiterStore();
+
+    private SharedWindowLimiter node() {
+        return new SharedWindowLimiter("test", 6, WINDOW, 2, 5_000, 1_000, clock::get);
+    }
+
+    private static int admitted(SharedWindowLimiter node, String key, int attempts) {
+        int ok = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (node.tryAcquire(key)) ok++;
+        }
+        return ok;
+    }
+
+    @Test
+    void budget_is_shared_between_nodes_after_sync() {
+        SharedWindowLimiter a = node();
+        SharedWindowLimiter b = node();
+
+        assertEquals(4, admitted(a, "1.2.3.4", 4));
+        a.sync(store);
+
+        // b has not read the key yet: its first hit is decided locally, the sync brings a's 4 hits
+        assertEquals(1, admitted(b, "1.2.3.4", 1));
+        b.sync(store);
+        clock.addAndGet(1_000);
+
+        assertEquals(1, admitted(b, "1.2.3.4", 10));
+        b.sync(store);
+
+        // a still decides on its stale total (overshoot bounded by one interval) until its sync
+        a.tryAcquire("1.2.3.4");
+        a.sync(store);
+        assertEquals(0, admitted(a, "1.2.3.4", 10));
+    }
+
+    @Test
+    void overshoot_bounded_by_one_interval_and_recovered_next_window() {
+        SharedWindowLimiter a = node();
+        SharedWindowLimiter b = node();
+
+        // both nodes admit in the same interval before hearing of each other: at most limit per node
+        int total = admitted(a, "k", 10) + admitted(b, "k", 10);
+        assertEquals(12, total);
+        a.sync(store);
+        b.sync(store);
+        a.sync(store);
+        assertEquals(0, admitted(a, "k", 1));
+        assertEquals(0, admitted(b, "k", 1));
+
+        // next window, after the periodic sync: full limit again (without a sync the store would be stale)
+        clock.addAndGet(WINDOW);
+        a.sync(store);
+        assertEquals(6, admitted(a, "k", 10));
+    }
+
+    @Test
+    void one_store_write_per_key_per_sync() {
+        AtomicReference<List<LimiterStore.Increment>> last = new AtomicReference<>();
+        LimiterStore recording = new LimiterStore() {
+            @Override
+            public long[] apply(List<Increment> increments) {
+                last.set(increments);
+                return store.apply(increments);
+            }
+
+            @Override
+            public int purgeExpired(Instant now) {
+                return 0;
+            }
+        };
+        SharedWindowLimiter a = node();
+        admitted(a, "x", 5);
+        admitted(a, "y", 3);
+        a.sync(recording);
+
+        assertEquals(2, last.get().size());
+        assertEquals(8, last.get().stream().mapToLong(LimiterStore.Increment::delta).sum());
+    }
+
+    @Test
+    void falls_back_to_local_share_when_store_is_down() {
+        LimiterStore down = new LimiterStore() {
+            @Override
+            public long[] apply(List<Increment> increments) {
+                throw new IllegalStateException("connection refused");
+            }
+
+            @Override
+            public int purgeExpired(Instant now) {
+                return 0;
+            }
+        };
+        SharedWindowLimiter a = node();
+        admitted(a, "k", 1);
+        a.sync(down);
+        clock.addAndGet(6_000);
+
+        // limit 6 over 2 replicas: 3 per node, including the hit already counted
+        assertEquals(2, admitted(a, "k", 10));
+        assertTrue(a.isDegraded());
+
+        // unsent hits are pushed once the store answers again, then the full cluster budget applies
+        a.sync(store);
+        assertEquals(3, admitted(a, "k", 10));
+        assertFalse(a.isDegraded());
+    }
+}
@@ -0,0 +1,100 @@
+package com.template.service.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    @Test
+    void allows_capacity_then_reports_retry_after() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 3_000, 64, clock::get);
+
+        assertEquals(0, limiter.acquire("a@example.com"));
+        assertEquals(0, limiter.acquire("a@example.com"));
+        assertEquals(0, limiter.acquire("a@example.com"));
+        // 3 tokens per 3 s: next one in 1 s
+        assertEquals(1_000, limiter.acquire("a@example.com"));
+
+        // other keys have their own bucket
+        assertEquals(0, limiter.acquire("b@example.com"));
+    }
+
+    @Test
+    void refills_at_capacity_per_window() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 3_000, 64, clock::get);
+        for (int i = 0; i < 3; i++) limiter.acquire("k");
+
+        clock.addAndGet(500);
+        assertEquals(500, limiter.acquire("k"));
+        clock.addAndGet(500);
+        assertEquals(0, limiter.acquire("k"));
+        assertTrue(limiter.acquire("k") > 0);
+
+        // never more than capacity after a long idle period
+        clock.addAndGet(60_000);
+        for (int i = 0; i < 3; i++) assertEquals(0, limiter.acquire("k"));
+        assertTrue(limiter.acquire("k") > 0);
+    }
+
+    @Test
+    void burst_above_sustained_rate() {
+        // bursts of 5, then 1 per second
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 60, 60_000, 64, clock::get);
+        for (int i = 0; i < 5; i++) assertEquals(0, limiter.acquire("k"));
+        assertEquals(1_000, limiter.acquire("k"));
+
+        clock.addAndGet(1_000);
+        assertEquals(0, limiter.acquire("k"));
+        assertEquals(1_000, limiter.acquire("k"));
+
+        // refilled up to the burst only
+        clock.addAndGet(3_600_000);
+        for (int i = 0; i < 5; i++) assertEquals(0, limiter.acquire("k"));
+        assertTrue(limiter.acquire("k") > 0);
+    }
+
+    @Test
+    void slow_refill_keeps_fractional_progress() {
+        // 3 per hour: one token every 20 minutes, granted even when polled every minute
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 3_600_000, 64, clock::get);
+        for (int i = 0; i < 3; i++) limiter.acquire("k");
+
+        int allowedAfter = -1;
+        for (int minute = 1; minute <= 20; minute++) {
+            clock.addAndGet(60_000);
+            if (limiter.acquire("k") == 0) {
+                allowedAfter = minute;
+                break;
+            }
+        }
+        assertEquals(20, allowedAfter);
+    }
+
+    @Test
+    void memory_is_capped_and_idle_keys_are_recycled() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1_000, 64, clock::get);
+        assertEquals(64, limiter.slots());
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.acquire("203.0.113." + i);
+        }
+        assertTrue(limiter.size() <= 64);
+        assertTrue(limiter.forcedEvictions() > 0);
+
+        clock.addAndGet(1_000);
+        assertEquals(limiter.size(), limiter.evictIdle());
+        assertEquals(0, limiter.size());
+
+        // at most PROBES keys can never fill a probe range: no forced eviction possible
+        long before = limiter.forcedEvictions();
+        for (int i = 0; i < TokenBucketLimiter.PROBES; i++) {
+            assertEquals(0, limiter.acquire("198.51.100." + i));
+        }
+        assertEquals(before, limiter.forcedEvictions());
+    }
+}
@@ -0,0 +1,141 @@
+package com.template.service.mail;
+
+import com.template.entity.MailOutbox;
+import com.template.repository.MailOutboxRepository;
+import com.template.service.MailService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// Rows go through H2; message building and SMTP are mocks. Attempts are driven by hand (the poller is not started).
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MailOutboxDispatcherTest {
+
+    @Autowired
+    private MailOutboxRepository repo;
+
+    private final OutboxPayloadCipher payloads = new OutboxPayloadCipher("k".repeat(32));
+    private MailService mailService;
+    private PooledMailTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        repo.deleteAll();
+        mailService = mock(MailService.class);
+        when(mailService.message(anyString(), anyString(), any(), anyMap()))
+                .thenReturn(new MimeMessage(Session.getInstance(new Properties())));
+        transport = mock(PooledMailTransport.class);
+        when(transport.send(anyList())).thenAnswer(inv -> Arrays.asList(new MailException[((List<?>) inv.getArgument(0)).size()]));
+    }
+
+    private MailOutboxDispatcher dispatcher(int maxAttempts) {
+        return new MailOutboxDispatcher(repo, mailService, transport, payloads, new SimpleMeterRegistry(),
+                false, 2, 10, 5, 1000, 60, maxAttempts, 1000, 60000);
+    }
+
+    private Long queue(Instant expiresAt) {
+        return repo.save(new MailOutbox(MailOutbox.Kind.PASSWORD_RESET, "john.doe@example.com", "fr-FR",
+                payloads.seal("http://localhost:8081/reset-password?token=abc"), Instant.now(), expiresAt)).getId();
+    }
+
+    // claim the way the poller does, then run the attempt on this thread
+    private void attempt(MailOutboxDispatcher d, Long id) {
+        Instant now = Instant.now();
+        assertEquals(1, repo.claim(id, MailOutbox.Status.PENDING, now, now.plusSeconds(60)));
+        d.deliver(List.of(id));
+    }
+
+    @Test
+    void sent_mail_is_marked_and_loses_its_payload() {
+        Long id = queue(Instant.now().plusSeconds(600));
+        attempt(dispatcher(3), id);
+
+        verify(mailService).message("john.doe@example.com", "reset", Locale.FRANCE,
+                Map.of("link", "http://localhost:8081/reset-password?token=abc"));
+        verify(transport).send(anyList());
+        MailOutbox mail = repo.findById(id).orElseThrow();
+        assertEquals(MailOutbox.Status.SENT, mail.getStatus());
+        assertNull(mail.getPayload());
+        assertNotNull(mail.getSentAt());
+    }
+
+    @Test
+    void failures_back_off_then_go_dead() {
+        when(transport.send(anyList())).thenReturn(List.of(new MailSendException("connection refused")));
+        MailOutboxDispatcher d = dispatcher(2);
+        Long id = queue(Instant.now().plusSeconds(600));
+
+        attempt(d, id);
+        MailOutbox mail = repo.findById(id).orElseThrow();
+        assertEquals(MailOutbox.Status.PENDING, mail.getStatus());
+        assertEquals(1, mail.getAttempts());
+        assertTrue(mail.getNextAttemptAt().isAfter(Instant.now()), "retry is delayed");
+        assertTrue(mail.getLastError().contains("connection refused"));
+
+        // not due yet: nobody can claim it
+        assertEquals(List.of(), repo.findDueIds(MailOutbox.Status.PENDING, Instant.now(), PageRequest.of(0, 10)));
+
+        Instant later = mail.getNextAttemptAt();
+        assertEquals(1, repo.claim(id, MailOutbox.Status.PENDING, later, later.plusSeconds(60)));
+        d.deliver(List.of(id));
+        assertEquals(MailOutbox.Status.DEAD, repo.findById(id).orElseThrow().getStatus());
+    }
+
+    @Test
+    void expired_mail_is_not_sent() {
+        Long id = queue(Instant.now().minusSeconds(1));
+        attempt(dispatcher(3), id);
+
+        verifyNoInteractions(mailService, transport);
+        assertEquals(MailOutbox.Status.DEAD, repo.findById(id).orElseThrow().getStatus());
+    }
+
+    @Test
+    void pending_link_is_not_stored_in_clear_and_dies_with_its_token() {
+        Long live = queue(Instant.now().plusSeconds(600));
+        Long stale = queue(Instant.now().minusSeconds(1));
+        assertFalse(repo.findById(live).orElseThrow().getPayload().contains("token=abc"));
+
+        assertEquals(1, repo.expirePending(MailOutbox.Status.PENDING, MailOutbox.Status.DEAD, Instant.now()));
+
+        MailOutbox expired = repo.findById(stale).orElseThrow();
+        assertEquals(MailOutbox.Status.DEAD, expired.getStatus());
+        assertNull(expired.getPayload());
+        assertEquals(MailOutbox.Status.PENDING, repo.findById(live).orElseThrow().getStatus());
+    }
+
+    @Test
+    void backoff_grows_and_stays_capped() {
+        MailOutboxDispatcher d = dispatcher(10);
+        for (int i = 0; i < 100; i++) {
+            long first = d.backoffMillis(1);
+            assertTrue(first >= 500 && first <= 1000, "first retry ~initial: " + first);
+            long capped = d.backoffMillis(40);
+            assertTrue(capped >= 30000 && capped <= 60000, "capped at max: " + capped);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.template.service.mail;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Real templates (classpath:mail/), messages from a static source
+class MailTemplateEngineTest {
+
+    private static final Map<String, String> LINK = Map.of("link", "http://localhost:8081/reset-password?token=a&b");
+
+    private StaticMessageSource messages;
+
+    @BeforeEach
+    void setUp() {
+        messages = new StaticMessageSource();
+        for (String key : new String[] {"subject", "title", "cta", "copyLink", "ignore", "validity"}) {
+            messages.addMessage("mail.reset." + key, Locale.ENGLISH, key + " <en>");
+            messages.addMessage("mail.reset." + key, Locale.FRENCH, key + " <fr>");
+        }
+    }
+
+    private MailTemplateEngine engine(long cacheSeconds) {
+        return new MailTemplateEngine(messages, new DefaultResourceLoader(), "classpath:mail", cacheSeconds);
+    }
+
+    @Test
+    void renders_messages_of_the_locale_and_escapes_html_only() {
+        MailTemplateEngine.Rendered fr = engine(-1).render("reset", Locale.FRENCH, LINK);
+
+        assertEquals("subject <fr>", fr.subject());
+        assertTrue(fr.text().startsWith("title <fr>\ncta <fr> (validity <fr>):\n"
+                + "http://localhost:8081/reset-password?token=a&b\n"), fr.text());
+        assertTrue(fr.html().contains("<p>title &lt;fr&gt;</p>"), fr.html());
+        assertTrue(fr.html().contains("href=\"http://localhost:8081/reset-password?token=a&amp;b\""), fr.html());
+        assertFalse(fr.html().contains("{{"));
+
+        assertEquals("subject <en>", engine(-1).render("reset", Locale.ENGLISH, LINK).subject());
+    }
+
+    @Test
+    void missing_variable_fails() {
+        assertThrows(IllegalArgumentException.class, () -> engine(-1).render("reset", Locale.ENGLISH, Map.of()));
+    }
+
+    @Test
+    void bundle_changes_show_up_only_when_reloading() {
+        MailTemplateEngine cached = engine(-1);
+        MailTemplateEngine reloading = engine(0);
+        cached.render("reset", Locale.ENGLISH, LINK);
+        reloading.render("reset", Locale.ENGLISH, LINK);
+
+        messages.addMessage("mail.reset.subject", Locale.ENGLISH, "new subject");
+
+        assertEquals("subject <en>", cached.render("reset", Locale.ENGLISH, LINK).subject());
+        assertEquals("new subject", reloading.render("reset", Locale.ENGLISH, LINK).subject());
+        cached.clear();
+        assertEquals("new subject", cached.render("reset", Locale.ENGLISH, LINK).subject());
+    }
+}
@@ -0,0 +1,42 @@
+package com.template.service.mail;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxPayloadCipherTest {
+
+    private static final String LINK = "http://localhost:8081/reset-password?token=abc";
+
+    private final OutboxPayloadCipher cipher = new OutboxPayloadCipher("k".repeat(32));
+
+    @Test
+    void sealed_payload_round_trips_without_the_link_in_clear() {
+        String sealed = cipher.seal(LINK);
+
+        assertFalse(sealed.contains("token=abc"));
+        assertNotEquals(sealed, cipher.seal(LINK), "random IV per payload");
+        assertEquals(LINK, cipher.open(sealed));
+        assertTrue(sealed.length() <= 1024, "fits mail_outbox.payload");
+    }
+
+    @Test
+    void other_key_or_altered_payload_is_refused() {
+        String sealed = cipher.seal(LINK);
+
+        assertThrows(IllegalStateException.class, () -> new OutboxPayloadCipher("x".repeat(32)).open(sealed));
+        String altered = sealed.substring(0, sealed.length() - 2) + (sealed.endsWith("AA") ? "BB" : "AA");
+        assertThrows(IllegalStateException.class, () -> cipher.open(altered));
+    }
+
+    @Test
+    void payloads_queued_before_encryption_pass_through() {
+        assertEquals(LINK, cipher.open(LINK));
+        assertNull(cipher.open(null));
+    }
+
+    @Test
+    void short_key_is_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new OutboxPayloadCipher("short"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.template.service.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Message;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// GreenMail is the SMTP server
+class PooledMailTransportTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private JavaMailSenderImpl sender;
+    private SimpleMeterRegistry registry;
+    private PooledMailTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+        registry = new SimpleMeterRegistry();
+        // validate-after-idle 0: every reuse is checked with a NOOP
+        transport = new PooledMailTransport(sender, registry, 2, 1000, 0, 60000, 600000, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.destroy();
+    }
+
+    private List<MimeMessage> messages(int n) throws Exception {
+        List<MimeMessage> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            MimeMessage m = sender.createMimeMessage();
+            m.setFrom(new InternetAddress("noreply@example.com"));
+            m.setRecipient(Message.RecipientType.TO, new InternetAddress("user" + i + "@example.com"));
+            m.setSubject("Reset " + i);
+            m.setText("link " + i);
+            out.add(m);
+        }
+        return out;
+    }
+
+    private double opened() {
+        return registry.get("mail.smtp.connections.opened").counter().count();
+    }
+
+    @Test
+    void batch_goes_over_one_connection_and_is_reused() throws Exception {
+        // 3 messages in all, under the limit of 4 per connection: the connection stays pooled
+        List<MailException> errors = transport.send(messages(2));
+        assertEquals(2, errors.stream().filter(e -> e == null).count());
+        transport.send(messages(1).get(0));
+
+        assertEquals(3, greenMail.getReceivedMessages().length);
+        assertEquals(1, opened());
+        assertEquals(1, transport.stats().size());
+    }
+
+    @Test
+    void connection_is_recycled_after_max_messages() throws Exception {
+        transport.send(messages(6));
+
+        assertEquals(6, greenMail.getReceivedMessages().length);
+        assertEquals(2, opened(), "4 messages per connection");
+        assertEquals(4.0, registry.get("mail.smtp.connection.messages").summary().max());
+    }
+
+    @Test
+    void dead_idle_connection_is_replaced() throws Exception {
+        transport.send(messages(1).get(0));
+        greenMail.reset(); // server restart: the pooled connection is gone
+
+        transport.send(messages(1).get(0));
+
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertEquals(2, opened());
+        assertEquals(1.0, registry.get("mail.smtp.connections.closed").tag("reason", "stale").counter().count());
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,24 +17,32 @@ public class BackendAuthClient {
     private final RestTemplate rest;
     private final String baseUrl;
     private final String authCookieName;
+    private final String refreshCookieName;
 
     public BackendAuthClient(RestTemplate rest,
     						@Value("${backend.api.url}") String baseUrl,
-                            @Value("${app.auth-cookie-name}") String authCookieName) {
+                            @Value("${app.auth-cookie-name}") String authCookieName,
+                            @Value("${app.refresh-cookie-name:refresh_token}") String refreshCookieName) {
         this.rest = rest;
         this.baseUrl = baseUrl;
         this.authCookieName = authCookieName;
+        this.refreshCookieName = refreshCookieName;
     }
 
     public static class LoginResult {
         public final UserResponseDTO user;
         public final String accessTokenCookieValue; // cookie value
         public final String tokenOnly; // JWT value
+        public final String refreshToken; // refresh cookie value (null if the backend sent none)
+        public final Instant accessTokenExpiresAt; // from the access cookie Max-Age
 
-        public LoginResult(UserResponseDTO user, String accessTokenCookieValue, String tokenOnly) {
+        public LoginResult(UserResponseDTO user, String accessTokenCookieValue, String tokenOnly,
+                           String refreshToken, Instant accessTokenExpiresAt) {
             this.user = user;
             this.accessTokenCookieValue = accessTokenCookieValue;
             this.tokenOnly = tokenOnly;
+            this.refreshToken = refreshToken;
+            this.accessTokenExpiresAt = accessTokenExpiresAt;
         }
     }
 
@@ -49,28 +58,48 @@ public class BackendAuthClient {
         if (!response.getStatusCode().is2xxSuccessful()) {
             throw new IllegalStateException("Login failed with status " + response.getStatusCode());
         }
+        return toLoginResult(response);
+    }
+
+    /** Exchanges a refresh token for new access/refresh tokens (no password check on the backend). */
+    public LoginResult refresh(String refreshToken) {
+        String url = baseUrl + "/auth/refresh";
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, refreshCookieName + "=" + refreshToken);
+
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        ResponseEntity<UserResponseDTO> response =
+                rest.exchange(url, HttpMethod.POST, entity, UserResponseDTO.class);
+
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("Refresh failed with status " + response.getStatusCode());
+        }
+        return toLoginResult(response);
+    }
 
+    private LoginResult toLoginResult(ResponseEntity<UserResponseDTO> response) {
         List<String> setCookies = response.getHeaders().get(HttpHeaders.SET_COOKIE);
         if (setCookies == null || setCookies.isEmpty()) {
             throw new IllegalStateException("No Set-Cookie returned by backend during login");
         }
 
+        String refreshToken = SetCookies.valueIn(setCookies, refreshCookieName).orElse(null);
         Optional<String> tokenCookie = setCookies.stream()
                 .filter(c -> c.toLowerCase().startsWith(authCookieName.toLowerCase() + "="))
                 .findFirst();
 
         if (tokenCookie.isEmpty()) {
             // if setCookie is not first
-            String tokenOnly = extractTokenFromSetCookieList(setCookies, authCookieName)
+            String tokenOnly = SetCookies.valueIn(setCookies, authCookieName)
                     .orElseThrow(() -> new IllegalStateException("No access_token cookie found"));
             // rebuild Set-Cookie 
             String rebuilt = authCookieName + "=" + tokenOnly + "; Path=/; HttpOnly";
-            return new LoginResult(response.getBody(), rebuilt, tokenOnly);
+            return new LoginResult(response.getBody(), rebuilt, tokenOnly, refreshToken, expiresAt(rebuilt));
         } else {
             String fullCookie = tokenCookie.get();
-            String tokenOnly = extractTokenValue(fullCookie, authCookieName)
+            String tokenOnly = SetCookies.value(fullCookie, authCookieName)
                     .orElseThrow(() -> new IllegalStateException("Token parse error"));
-            return new LoginResult(response.getBody(), fullCookie, tokenOnly);
+            return new LoginResult(response.getBody(), fullCookie, tokenOnly, refreshToken, expiresAt(fullCookie));
         }
     }
 
@@ -89,33 +118,22 @@ public class BackendAuthClient {
         return response.getBody();
     }
 
-    public void logout(String tokenFromSession) {
+    public void logout(String tokenFromSession, String refreshTokenFromSession) {
         String url = baseUrl + "/auth/logout";
         HttpHeaders headers = new HttpHeaders();
-        // backend waiting cookie access_token
-        headers.add(HttpHeaders.COOKIE, authCookieName + "=" + tokenFromSession);
+        // backend waiting cookie access_token (+ refresh_token to revoke the session)
+        String cookies = authCookieName + "=" + tokenFromSession;
+        if (refreshTokenFromSession != null) {
+            cookies += "; " + refreshCookieName + "=" + refreshTokenFromSession;
+        }
+        headers.add(HttpHeaders.COOKIE, cookies);
 
         HttpEntity<Void> entity = new HttpEntity<>(headers);
         rest.exchange(url, HttpMethod.POST, entity, Void.class);
     }
 
-    private static Optional<String> extractTokenValue(String setCookie, String name) {
-        String prefix = name + "=";
-        int idx = setCookie.indexOf(prefix);
-        if (idx >= 0) {
-            int start = idx + prefix.length();
-            int end = setCookie.indexOf(';', start);
-            if (end < 0) end = setCookie.length();
-            return Optional.of(setCookie.substring(start, end));
-        }
-        return Optional.empty();
-    }
-
-    private static Optional<String> extractTokenFromSetCookieList(List<String> cookies, String name) {
-        for (String c : cookies) {
-            var maybe = extractTokenValue(c, name);
-            if (maybe.isPresent()) return maybe;
-        }
-        return Optional.empty();
+    // Max-Age of the access cookie; 15 min (backend default) when absent
+    private static Instant expiresAt(String setCookie) {
+        return Instant.now().plusSeconds(SetCookies.maxAgeSeconds(setCookie, 15 * 60));
     }
 }
@@ -0,0 +1,105 @@
+package com.template.front.client;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Resolves token signing keys from the backend JWKS (/.well-known/jwks.json).
+//Keys are fetched once and cached; an unknown kid triggers a refetch, at most once per min-refresh interval.
+@Component
+public class JwksKeyResolver extends SigningKeyResolverAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyResolver.class);
+
+    public record JwksDocument(List<Map<String, String>> keys) {}
+
+    private final RestTemplate rest;
+    private final String jwksUrl;
+    private final long minRefreshNanos;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile long lastFetchNanos;
+    private volatile boolean fetched;
+
+    public JwksKeyResolver(RestTemplate rest,
+                           @Value("${app.jwt.jwks-url}") String jwksUrl,
+                           @Value("${app.jwt.jwks-min-refresh-seconds:30}") long minRefreshSeconds) {
+        this.rest = rest;
+        this.jwksUrl = jwksUrl;
+        this.minRefreshNanos = Duration.ofSeconds(Math.max(0, minRefreshSeconds)).toNanos();
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            throw new SignatureException("Token has no kid header");
+        }
+        PublicKey key = keys.get(kid);
+        if (key == null) {
+            refresh();
+            key = keys.get(kid);
+        }
+        if (key == null) {
+            throw new SignatureException("Unknown JWT key id: " + kid);
+        }
+        return key;
+    }
+
+    // Serialized so a burst of tokens with a new kid causes a single fetch
+    private synchronized void refresh() {
+        long now = System.nanoTime();
+        if (fetched && now - lastFetchNanos < minRefreshNanos) {
+            return;
+        }
+        lastFetchNanos = now;
+        fetched = true;
+        try {
+            JwksDocument doc = rest.getForObject(jwksUrl, JwksDocument.class);
+            Map<String, PublicKey> next = new HashMap<>();
+            if (doc != null && doc.keys() != null) {
+                for (Map<String, String> jwk : doc.keys()) {
+                    if ("EC".equals(jwk.get("kty")) && "P-256".equals(jwk.get("crv")) && jwk.get("kid") != null) {
+                        next.put(jwk.get("kid"), ecPublicKey(jwk.get("x"), jwk.get("y")));
+                    }
+                }
+            }
+            keys = Map.copyOf(next);
+            log.debug("JWKS refreshed: {} key(s)", next.size());
+        } catch (Exception e) {
+            // keep the previous keys; the next unknown kid after the interval retries
+            log.warn("Failed to fetch JWKS from {}: {}", jwksUrl, e.getMessage());
+        }
+    }
+
+    private static PublicKey ecPublicKey(String x, String y) throws Exception {
+        AlgorithmParameters params = AlgorithmParameters.getInstance("EC");
+        params.init(new ECGenParameterSpec("secp256r1"));
+        ECParameterSpec spec = params.getParameterSpec(ECParameterSpec.class);
+        ECPoint point = new ECPoint(
+                new BigInteger(1, Base64.getUrlDecoder().decode(x)),
+                new BigInteger(1, Base64.getUrlDecoder().decode(y)));
+        return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, spec));
+    }
+}
@@ -0,0 +1,44 @@
+package com.template.front.client;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+//Helpers reading cookies out of backend Set-Cookie headers (public for the benchmarks module).
+public final class SetCookies {
+
+    private SetCookies() {}
+
+    public static Optional<String> value(String setCookie, String name) {
+        String prefix = name + "=";
+        int idx = setCookie.indexOf(prefix);
+        if (idx >= 0) {
+            int start = idx + prefix.length();
+            int end = setCookie.indexOf(';', start);
+            if (end < 0) end = setCookie.length();
+            return Optional.of(setCookie.substring(start, end));
+        }
+        return Optional.empty();
+    }
+
+    public static Optional<String> valueIn(List<String> cookies, String name) {
+        for (String c : cookies) {
+            var maybe = value(c, name);
+            if (maybe.isPresent()) return maybe;
+        }
+        return Optional.empty();
+    }
+
+    /** Max-Age attribute in seconds, or {@code defaultSeconds} when absent. */
+    public static long maxAgeSeconds(String setCookie, long defaultSeconds) {
+        String lower = setCookie.toLowerCase(Locale.ROOT);
+        int idx = lower.indexOf("max-age=");
+        if (idx >= 0) {
+            int start = idx + "max-age=".length();
+            int end = start;
+            while (end < lower.length() && Character.isDigit(lower.charAt(end))) end++;
+            if (end > start) return Long.parseLong(lower.substring(start, end));
+        }
+        return defaultSeconds;
+    }
+}
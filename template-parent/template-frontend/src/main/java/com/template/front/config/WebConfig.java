@@ -1,9 +1,12 @@
 package com.template.front.config;
 
+import com.template.front.client.BackendAuthClient;
+import com.template.front.web.LocalTokenVerifier;
 import com.template.front.web.LoginRequiredInterceptor;
 import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
@@ -23,11 +26,30 @@ public class WebConfig implements WebMvcConfigurer {
 
     public static final String SESSION_JWT = "ACCESS_TOKEN";
     public static final String SESSION_USER = "CURRENT_USER";
+    public static final String SESSION_REFRESH = "REFRESH_TOKEN";
+    public static final String SESSION_JWT_EXPIRES = "ACCESS_TOKEN_EXPIRES";
 
     // false for HTTP in dev, true for HTTPS in production)
     @Value("${app.cookies.secure:false}")
     private boolean cookiesSecure;
 
+    @Value("${app.auth-cookie-name}")
+    private String authCookieName;
+
+    // Refresh the access token this long before it expires
+    @Value("${app.refresh-ahead-seconds:30}")
+    private long refreshAheadSeconds;
+
+    // Lazy: both depend on the RestTemplate declared below
+    private final ObjectProvider<LocalTokenVerifier> tokenVerifier;
+    private final ObjectProvider<BackendAuthClient> backend;
+
+    public WebConfig(ObjectProvider<LocalTokenVerifier> tokenVerifier,
+                     ObjectProvider<BackendAuthClient> backend) {
+        this.tokenVerifier = tokenVerifier;
+        this.backend = backend;
+    }
+
     @Bean
     public RestTemplate restTemplate() {
         RestTemplate rt = new RestTemplate();
@@ -52,7 +74,8 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addInterceptor(localeChangeInterceptor());
 
         // 2) Secure the entire website by default, and exclude publicly accessible pages
-        registry.addInterceptor(new LoginRequiredInterceptor())
+        registry.addInterceptor(new LoginRequiredInterceptor(
+                        tokenVerifier.getObject(), backend.getObject(), authCookieName, Duration.ofSeconds(refreshAheadSeconds)))
                 .addPathPatterns("/**")
                 .excludePathPatterns(
                         // Public pages & actions
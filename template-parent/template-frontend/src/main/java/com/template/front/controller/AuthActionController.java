@@ -43,6 +43,8 @@ public class AuthActionController {
             // stock token user
             session.setAttribute(WebConfig.SESSION_JWT, res.tokenOnly);
             session.setAttribute(WebConfig.SESSION_USER, res.user);
+            session.setAttribute(WebConfig.SESSION_REFRESH, res.refreshToken);
+            session.setAttribute(WebConfig.SESSION_JWT_EXPIRES, res.accessTokenExpiresAt);
 
             ResponseCookie cookie = ResponseCookie.from(authCookieName, res.tokenOnly)
                     .httpOnly(true)
@@ -81,9 +83,10 @@ public class AuthActionController {
     @PostMapping("/logout")
     public String doLogout(HttpServletResponse response, HttpSession session) {
         var token = (String) session.getAttribute(WebConfig.SESSION_JWT);
+        var refreshToken = (String) session.getAttribute(WebConfig.SESSION_REFRESH);
         if (token != null) {
             try {
-                backend.logout(token);
+                backend.logout(token, refreshToken);
             } catch (Exception ignored) {
             }
         }
@@ -0,0 +1,55 @@
+package com.template.front.web;
+
+import com.template.front.client.JwksKeyResolver;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.JwtParserBuilder;
+import io.jsonwebtoken.Jwts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+//Verifies backend access tokens in-process (ES256 mode) with keys from the backend JWKS.
+//Disabled by default: with an HS256 backend the JWKS is empty and nothing could verify.
+@Component
+public class LocalTokenVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalTokenVerifier.class);
+
+    private final boolean enabled;
+    private final JwtParser parser;
+
+    public LocalTokenVerifier(JwksKeyResolver keyResolver,
+                              @Value("${app.jwt.local-verification:false}") boolean enabled,
+                              @Value("${app.jwt.issuer}") String issuer,
+                              @Value("${app.jwt.audience:}") String audience,
+                              @Value("${app.jwt.clock-skew-seconds:30}") long clockSkewSeconds) {
+        this.enabled = enabled;
+        JwtParserBuilder builder = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyResolver)
+                .requireIssuer(issuer)
+                .setAllowedClockSkewSeconds(Math.max(0, clockSkewSeconds));
+        if (audience != null && !audience.isBlank()) {
+            builder.requireAudience(audience);
+        }
+        this.parser = builder.build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Claims of a valid token, empty when the signature, issuer, audience or expiry check fails. */
+    public Optional<Claims> verify(String token) {
+        try {
+            return Optional.of(parser.parseClaimsJws(token).getBody());
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Local token verification failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -1,20 +1,100 @@
 package com.template.front.web;
 
+import com.template.front.client.BackendAuthClient;
 import com.template.front.config.WebConfig;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseCookie;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+import java.time.Duration;
+import java.time.Instant;
 
 public class LoginRequiredInterceptor implements HandlerInterceptor {
 
+    private static final Logger log = LoggerFactory.getLogger(LoginRequiredInterceptor.class);
+
+    private final LocalTokenVerifier tokenVerifier;
+    private final BackendAuthClient backend;
+    private final String authCookieName;
+    private final Duration refreshAhead;
+
+    public LoginRequiredInterceptor(LocalTokenVerifier tokenVerifier,
+                                    BackendAuthClient backend,
+                                    String authCookieName,
+                                    Duration refreshAhead) {
+        this.tokenVerifier = tokenVerifier;
+        this.backend = backend;
+        this.authCookieName = authCookieName;
+        this.refreshAhead = refreshAhead;
+    }
+
     @Override
     public boolean preHandle(HttpServletRequest request,
                              HttpServletResponse response, Object handler) throws Exception {
-        var token = request.getSession().getAttribute(WebConfig.SESSION_JWT);
+        var session = request.getSession();
+        var token = (String) session.getAttribute(WebConfig.SESSION_JWT);
         if (token == null) {
             response.sendRedirect("/login?required");
             return false;
         }
+        // Sliding session: swap the refresh token for a new access token shortly before expiry.
+        // Serialized per session: refresh tokens are single-use, a second concurrent refresh would
+        // look like a reuse to the backend and revoke the session.
+        if (isNearExpiry(session)) {
+            synchronized (WebUtils.getSessionMutex(session)) {
+                token = isNearExpiry(session)
+                        ? refresh(session, response)
+                        : (String) session.getAttribute(WebConfig.SESSION_JWT);
+            }
+            if (token == null) {
+                session.invalidate();
+                response.sendRedirect("/login?expired");
+                return false;
+            }
+        }
+        // Local signature/expiry check (no backend call) when the backend publishes its keys
+        if (tokenVerifier.isEnabled() && tokenVerifier.verify(token).isEmpty()) {
+            session.invalidate();
+            response.sendRedirect("/login?expired");
+            return false;
+        }
         return true;
     }
-}
\ No newline at end of file
+
+    private boolean isNearExpiry(HttpSession session) {
+        var expiresAt = (Instant) session.getAttribute(WebConfig.SESSION_JWT_EXPIRES);
+        return expiresAt != null && Instant.now().isAfter(expiresAt.minus(refreshAhead));
+    }
+
+    private String refresh(HttpSession session, HttpServletResponse response) {
+        var refreshToken = (String) session.getAttribute(WebConfig.SESSION_REFRESH);
+        if (refreshToken == null) {
+            return null;
+        }
+        try {
+            var res = backend.refresh(refreshToken);
+            session.setAttribute(WebConfig.SESSION_JWT, res.tokenOnly);
+            session.setAttribute(WebConfig.SESSION_JWT_EXPIRES, res.accessTokenExpiresAt);
+            session.setAttribute(WebConfig.SESSION_REFRESH, res.refreshToken);
+            session.setAttribute(WebConfig.SESSION_USER, res.user);
+
+            ResponseCookie cookie = ResponseCookie.from(authCookieName, res.tokenOnly)
+                    .httpOnly(true)
+                    .secure(false)  // false for http, true for https
+                    .path("/")
+                    .maxAge(Duration.between(Instant.now(), res.accessTokenExpiresAt))
+                    .sameSite("Lax") //None for https
+                    .build();
+            response.addHeader("Set-Cookie", cookie.toString());
+            return res.tokenOnly;
+        } catch (Exception e) {
+            log.debug("Token refresh failed: {}", e.getMessage());
+            return null;
+        }
+    }
+}